@@ -0,0 +1,33 @@
+plugins {
+    kotlin("kapt")
+}
+
+sourceSets.main {
+    java.srcDir("src/main")
+    resources.srcDir("src/resources")
+}
+
+dependencies {
+    implementation(project(":server"))
+    implementation(project(":plugin"))
+    implementation(project(":plugin", "testFixtures"))
+    
+    implementation("org.openjdk.jmh", "jmh-core", "1.28")
+    kapt("org.openjdk.jmh", "jmh-generator-annprocess", "1.28")
+}
+
+tasks {
+    val jmh by creating(JavaExec::class) {
+        group = "verification"
+        description = "Runs the JMH benchmarks, pass -Pjmh=<regex> to select benchmarks and -PjmhArgs=\"...\" for further JMH options"
+        dependsOn(classes)
+        classpath = sourceSets.main.get().runtimeClasspath
+        main = "org.openjdk.jmh.Main"
+        val resultFile = buildDir.resolve("jmh-result.json")
+        args = listOfNotNull(project.findProperty("jmh")?.toString()) +
+               listOf("-rf", "json", "-rff", resultFile.toString()) +
+               (project.findProperty("jmhArgs")?.toString()?.split(' ')?.filter { it.isNotBlank() } ?: emptyList())
+        outputs.file(resultFile)
+        outputs.upToDateWhen { false }
+    }
+}
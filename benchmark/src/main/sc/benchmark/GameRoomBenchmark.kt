@@ -0,0 +1,80 @@
+package sc.benchmark
+
+import org.openjdk.jmh.annotations.*
+import sc.networking.INetworkInterface
+import sc.plugin2021.GamePlugin
+import sc.plugin2021.GameState
+import sc.plugin2021.helper.GamePhase
+import sc.protocol.requests.PrepareGameRequest
+import sc.server.gaming.GameRoom
+import sc.server.gaming.GameRoomManager
+import sc.server.gaming.ReservationManager
+import sc.server.network.Client
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.PipedInputStream
+import java.io.PipedOutputStream
+import java.util.concurrent.TimeUnit
+
+/**
+ * Broadcasting a new state to both players and an observer of a [GameRoom],
+ * which includes serializing it once per recipient.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class GameRoomBenchmark {
+    @Param("EARLY", "MIDDLE", "LATE")
+    lateinit var phase: GamePhase
+    
+    lateinit var room: GameRoom
+    lateinit var state: GameState
+    private val clients = ArrayList<Client>()
+    
+    @Setup
+    fun setup() {
+        val manager = GameRoomManager().apply { pluginManager.loadPlugin(GamePlugin::class.java) }
+        // A paused game does not request moves, so no timeouts interfere
+        val reservations = manager.prepareGame(PrepareGameRequest(GamePlugin.PLUGIN_UUID, pause = true)).reservations
+        room = manager.games.single()
+        reservations.forEach { ReservationManager.redeemReservationCode(createClient(), it) }
+        room.addObserver(createClient())
+        state = phase.createState()
+    }
+    
+    @TearDown
+    fun tearDown() {
+        clients.forEach { it.stop() }
+        clients.clear()
+    }
+    
+    @Benchmark
+    fun broadcastState() {
+        room.onStateChanged(state, false)
+    }
+    
+    private fun createClient() =
+            Client(DiscardingNetworkInterface()).apply { start() }.also { clients.add(it) }
+}
+
+/** A network connection that never receives anything and drops everything that is sent. */
+class DiscardingNetworkInterface: INetworkInterface {
+    private val pipe = PipedOutputStream()
+    private val input = PipedInputStream(pipe)
+    private val output = object: OutputStream() {
+        override fun write(b: Int) {}
+        override fun write(b: ByteArray, off: Int, len: Int) {}
+    }
+    
+    override fun getInputStream(): InputStream = input
+    
+    override fun getOutputStream(): OutputStream = output
+    
+    override fun close() {
+        // Lets the receiving thread of the client read the end of the stream
+        pipe.close()
+    }
+}
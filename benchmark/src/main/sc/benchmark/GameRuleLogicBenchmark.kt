@@ -0,0 +1,43 @@
+package sc.benchmark
+
+import org.openjdk.jmh.annotations.*
+import sc.plugin2021.GameState
+import sc.plugin2021.SetMove
+import sc.plugin2021.helper.GamePhase
+import sc.plugin2021.util.GameRuleLogic
+import java.util.concurrent.TimeUnit
+
+/** Move generation and validation on the [GamePhase] positions. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class GameRuleLogicBenchmark {
+    @Param("EARLY", "MIDDLE", "LATE")
+    lateinit var phase: GamePhase
+    
+    lateinit var state: GameState
+    lateinit var moves: Array<SetMove>
+    private var next = 0
+    
+    @Setup
+    fun setup() {
+        state = phase.createState()
+        moves = GameRuleLogic.getPossibleMoves(state).toTypedArray()
+    }
+    
+    @Benchmark
+    fun getPossibleMoves() =
+            GameRuleLogic.getPossibleMoves(state)
+    
+    /** Validates one of the possible moves per invocation, cycling through all of them. */
+    @Benchmark
+    fun validateSetMove(): SetMove {
+        val move = moves[next]
+        next = (next + 1) % moves.size
+        GameRuleLogic.validateSetMove(state, move)
+        return move
+    }
+}
@@ -0,0 +1,29 @@
+package sc.benchmark
+
+import org.openjdk.jmh.annotations.*
+import sc.plugin2021.GameState
+import sc.plugin2021.helper.GamePhase
+import java.util.concurrent.TimeUnit
+
+/** Copying a [GameState], as done for every state sent out by the server. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class GameStateBenchmark {
+    @Param("EARLY", "MIDDLE", "LATE")
+    lateinit var phase: GamePhase
+    
+    lateinit var state: GameState
+    
+    @Setup
+    fun setup() {
+        state = phase.createState()
+    }
+    
+    @Benchmark
+    fun clone() =
+            state.clone()
+}
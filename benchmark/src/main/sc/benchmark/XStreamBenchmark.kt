@@ -0,0 +1,59 @@
+package sc.benchmark
+
+import com.thoughtworks.xstream.XStream
+import org.openjdk.jmh.annotations.*
+import sc.networking.XStreamProvider
+import sc.plugin2021.Board
+import sc.plugin2021.GameState
+import sc.plugin2021.helper.GamePhase
+import sc.protocol.responses.MementoEvent
+import java.util.concurrent.TimeUnit
+
+/** Serialization with the XStream instance used by server and clients, see [XStreamProvider.loadPluginXStream]. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class XStreamBenchmark {
+    @Param("EARLY", "MIDDLE", "LATE")
+    lateinit var phase: GamePhase
+    
+    lateinit var xStream: XStream
+    lateinit var memento: MementoEvent
+    lateinit var mementoXml: String
+    lateinit var board: Board
+    lateinit var boardXml: String
+    
+    @Setup
+    fun setup() {
+        xStream = XStreamProvider.loadPluginXStream()
+        val state = phase.createState()
+        memento = MementoEvent(state, null)
+        mementoXml = xStream.toXML(memento)
+        board = state.board
+        boardXml = xStream.toXML(board)
+    }
+    
+    @Benchmark
+    fun marshalMemento(): String =
+            xStream.toXML(memento)
+    
+    @Benchmark
+    fun unmarshalMemento() =
+            xStream.fromXML(mementoXml) as MementoEvent
+    
+    @Benchmark
+    fun marshalGameState(): String =
+            xStream.toXML(memento.state)
+    
+    /** Writes and reads a [Board] through the [sc.plugin2021.xstream.BoardConverter]. */
+    @Benchmark
+    fun boardRoundTrip() =
+            xStream.fromXML(xStream.toXML(board)) as Board
+    
+    @Benchmark
+    fun unmarshalBoard() =
+            xStream.fromXML(boardXml) as Board
+}
@@ -5,8 +5,9 @@ plugins {
     application
 }
 
-sourceSets.main {
-    java.srcDir("src")
+sourceSets {
+    main.get().java.srcDir("src")
+    test.get().java.srcDir("test")
 }
 
 application {
@@ -0,0 +1,96 @@
+package sc;
+
+import static java.lang.Math.log;
+import static java.lang.Math.pow;
+
+/**
+ * Sequential probability ratio test on the wins, draws and losses of player1 against player2.
+ * <p>
+ * Tests the hypothesis that player1 is {@link #elo0} Elo stronger than player2 (H0)
+ * against the hypothesis that it is {@link #elo1} Elo stronger (H1),
+ * with a false positive rate of {@link #alpha} and a false negative rate of {@link #beta}.
+ * The log-likelihood ratio uses the normal approximation of the game scores,
+ * so draws count as half a win and reduce the variance.
+ */
+class Sprt {
+  enum Result {H0, H1}
+
+  final double elo0;
+  final double elo1;
+  final double alpha;
+  final double beta;
+
+  private int wins;
+  private int draws;
+  private int losses;
+
+  Sprt(double elo0, double elo1, double alpha, double beta) {
+    if (elo0 >= elo1)
+      throw new IllegalArgumentException("elo0 must be smaller than elo1");
+    if (!(alpha > 0 && alpha < 1) || !(beta > 0 && beta < 1))
+      throw new IllegalArgumentException("alpha and beta must be between 0 and 1");
+    this.elo0 = elo0;
+    this.elo1 = elo1;
+    this.alpha = alpha;
+    this.beta = beta;
+  }
+
+  /** Adds a game by its score for player1: 1 for a win, 0.5 for a draw and 0 for a loss. */
+  void add(double score) {
+    if (score > 0.5)
+      wins++;
+    else if (score < 0.5)
+      losses++;
+    else
+      draws++;
+  }
+
+  int getGames() {
+    return wins + draws + losses;
+  }
+
+  /** @return the log-likelihood ratio of H1 against H0 */
+  double llr() {
+    int n = getGames();
+    if (n == 0)
+      return 0;
+    double mean = (wins + draws / 2.0) / n;
+    double variance = (wins * pow(1 - mean, 2) + draws * pow(0.5 - mean, 2) + losses * pow(mean, 2)) / n;
+    // at least the variance a single draw among the games would cause, so that only wins or only losses reach a bound
+    variance = Math.max(variance, 0.25 / n);
+    double score0 = expectedScore(elo0);
+    double score1 = expectedScore(elo1);
+    return (score1 - score0) * (2 * mean - score0 - score1) * n / (2 * variance);
+  }
+
+  /** Bound of the {@link #llr()} below which H0 is accepted. */
+  double lowerBound() {
+    return log(beta / (1 - alpha));
+  }
+
+  /** Bound of the {@link #llr()} above which H1 is accepted. */
+  double upperBound() {
+    return log((1 - beta) / alpha);
+  }
+
+  /** @return the accepted hypothesis, or null if more games are needed */
+  Result result() {
+    double llr = llr();
+    if (llr >= upperBound())
+      return Result.H1;
+    if (llr <= lowerBound())
+      return Result.H0;
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SPRT(elo0=%.1f, elo1=%.1f, alpha=%.2f, beta=%.2f): W/D/L %d/%d/%d, LLR %.2f [%.2f, %.2f]",
+        elo0, elo1, alpha, beta, wins, draws, losses, llr(), lowerBound(), upperBound());
+  }
+
+  /** @return the expected score of a player with the given Elo advantage */
+  static double expectedScore(double elo) {
+    return 1 / (1 + pow(10, -elo / 400));
+  }
+}
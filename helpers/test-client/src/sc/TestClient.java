@@ -17,18 +17,22 @@ import sc.shared.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.ServiceLoader;
 import java.util.StringTokenizer;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.IntToDoubleFunction;
-
-import static java.lang.Math.pow;
-import static sc.Util.factorial;
 
 /**
  * A simple command-line application to test clients. Enables TestMode on startup.
@@ -39,6 +43,9 @@ import static sc.Util.factorial;
  * <li>displayNames: player1, player2</li>
  * <li>client location: ./defaultplayer.jar</li>
  * <li>canTimeout: true</li>
+ * <li>parallel: 1 game at a time</li>
+ * <li>persistent players: off, a new process is started for every game</li>
+ * <li>sprt: off, elo0 0, elo1 20, alpha 0.05, beta 0.05</li>
  * </ul>
  */
 public class TestClient extends XStreamClient {
@@ -49,8 +56,10 @@ public class TestClient extends XStreamClient {
   private static final File logDir = new File("log").getAbsoluteFile();
 
   private static TestClient testclient;
-  private static Double significance;
-  private static int minTests;
+  private static Sprt sprt;
+  private static Long seed;
+  private static int parallel;
+  private static boolean persistentPlayers;
 
   private static final String classpath = System.getProperty("java.class.path");
 
@@ -66,8 +75,14 @@ public class TestClient extends XStreamClient {
     Option portOption = parser.addIntegerOption('p', "port");
 
     Option numberOfTestsOption = parser.addIntegerOption('t', "tests");
-    Option minTestsOption = parser.addIntegerOption("min-tests");
-    Option significanceOption = parser.addDoubleOption("significance");
+    Option sprtOption = parser.addBooleanOption("sprt");
+    Option elo0Option = parser.addDoubleOption("elo0");
+    Option elo1Option = parser.addDoubleOption("elo1");
+    Option alphaOption = parser.addDoubleOption("alpha");
+    Option betaOption = parser.addDoubleOption("beta");
+    Option seedOption = parser.addStringOption("seed");
+    Option parallelOption = parser.addIntegerOption("parallel");
+    Option persistentPlayersOption = parser.addBooleanOption("persistent-players");
 
     Option noTimeoutOption = parser.addBooleanOption("no-timeout");
     Option[] execOptions = {parser.addStringOption("player1"), parser.addStringOption("player2")};
@@ -99,15 +114,30 @@ public class TestClient extends XStreamClient {
     int port = (int) parser.getOptionValue(portOption, SharedConfiguration.DEFAULT_TESTSERVER_PORT);
 
     int numberOfTests = (int) parser.getOptionValue(numberOfTestsOption, 100);
-    significance = (Double) parser.getOptionValue(significanceOption);
-    if (significance != null) {
-      minTests = (int) parser.getOptionValue(minTestsOption, 20);
-      if (numberOfTests > 170) {
-        logger.error("With significance testing the number of tests must not exceed 170!");
+    parallel = (int) parser.getOptionValue(parallelOption, 1);
+    if (parallel < 1) {
+      logger.error("The number of parallel games must be positive!");
+      exit(2);
+    }
+    if ((boolean) parser.getOptionValue(sprtOption, false)) {
+      try {
+        sprt = new Sprt(
+            (double) parser.getOptionValue(elo0Option, 0.0),
+            (double) parser.getOptionValue(elo1Option, 20.0),
+            (double) parser.getOptionValue(alphaOption, 0.05),
+            (double) parser.getOptionValue(betaOption, 0.05));
+      } catch (IllegalArgumentException e) {
+        logger.error(e.getMessage());
         exit(2);
       }
     }
 
+    String seedValue = (String) parser.getOptionValue(seedOption);
+    if (seedValue != null)
+      seed = Long.parseLong(seedValue);
+
+    persistentPlayers = (boolean) parser.getOptionValue(persistentPlayersOption, false);
+
     boolean noTimeout = (boolean) parser.getOptionValue(noTimeoutOption, false);
     for (int i = 0; i < 2; i++) {
       players[i].canTimeout = !(noTimeout || (boolean) parser.getOptionValue(noTimeoutOptions[i], false));
@@ -160,16 +190,26 @@ public class TestClient extends XStreamClient {
   private final String host;
   private final int port;
 
-  private final ExecutorService waiter = Executors.newSingleThreadExecutor();
+  /** watches the running games and cleans up the player processes of finished ones */
+  private final ScheduledExecutorService waiter = Executors.newSingleThreadScheduledExecutor();
 
   /** total number of tests that should be executed */
   private final int totalTests;
 
+  /** number of tests that have been prepared, the index of the next game */
+  private int startedTests;
+
   /** number of tests that have already been run */
   private int finishedTests;
 
+  /** indices of the games whose {@link GamePreparedResponse} is outstanding, in the order they were requested */
+  private final Queue<Integer> preparingGames = new ArrayDeque<>();
+
+  /** games whose players have been started, by room id */
+  private final Map<String, RunningGame> runningGames = new ConcurrentHashMap<>();
+
   private boolean terminateWhenPossible = false;
-  private int playerScores = 0;
+  private int pendingScores = 0;
   private int irregularGames = 0;
 
   public TestClient(String host, int port, int totalTests) throws IOException {
@@ -183,6 +223,7 @@ public class TestClient extends XStreamClient {
     send(new AuthenticateRequest(Configuration.getAdministrativePassword()));
     send(new TestModeRequest(true));
     logger.info("Waiting for server...");
+    waiter.scheduleWithFixedDelay(this::checkRunningGames, 1, 1, TimeUnit.SECONDS);
   }
 
   private boolean gameProgressing = false;
@@ -198,7 +239,8 @@ public class TestClient extends XStreamClient {
     if (message instanceof TestModeResponse) {
       boolean testMode = (((TestModeResponse) message).getTestMode());
       logger.debug("TestMode was set to {} - starting clients", testMode);
-      prepareNewClients();
+      for (int i = 0; i < Math.min(parallel, totalTests); i++)
+        prepareNewClients();
     } else if (message instanceof RoomPacket) {
       RoomPacket packet = (RoomPacket) message;
       if (packet.getData() instanceof GameResult) {
@@ -206,6 +248,11 @@ public class TestClient extends XStreamClient {
           gameProgressing = false;
           System.out.println();
         }
+        RunningGame game = runningGames.remove(packet.getRoomId());
+        if (game == null) {
+          logger.warn("Received a GameResult for unknown room {}", packet.getRoomId());
+          return;
+        }
         GameResult result = (GameResult) packet.getData();
         if (!result.isRegular())
           irregularGames++;
@@ -214,26 +261,40 @@ public class TestClient extends XStreamClient {
         if (result.getWinners() != null)
           for (Player winner : result.getWinners())
             log.append(winner.getDisplayName()).append(", ");
-        logger.warn(log.substring(0, log.length() - 2), finishedTests);
+        logger.warn(log.substring(0, log.length() - 2), game.index);
 
         finishedTests++;
+        if (sprt != null && !terminateWhenPossible) {
+          // player1 has the first slot in even games
+          sprt.add(result.getScores().get(game.index % 2).getValues().get(0).doubleValue() / 2);
+          logger.info(sprt.toString());
+          Sprt.Result decision = sprt.result();
+          if (decision != null) {
+            logger.warn("{} after {} games: {} is {} Elo stronger than {}", sprt, sprt.getGames(),
+                players[0].name, decision == Sprt.Result.H1 ? "at least " + sprt.elo1 : "at most " + sprt.elo0, players[1].name);
+            terminateWhenPossible = true;
+          }
+        }
+        pendingScores += players.length;
         for (ClientPlayer player : players)
           send(new PlayerScoreRequest(player.name));
 
-        try {
-          for (ClientPlayer player : players)
-            player.proc.waitFor(5, TimeUnit.SECONDS);
-        } catch (InterruptedException ignored) {
+        if (persistentPlayers) {
+          for (int i = 0; i < players.length; i++)
+            players[i].idleProcesses.add(game.processes[i]);
+        } else {
+          waiter.schedule(() -> {
+            for (int i = 0; i < players.length; i++)
+              if (game.processes[i].isAlive()) {
+                logger.warn("ClientPlayer {} is not responding anymore. Killing...", players[i].name);
+                game.processes[i].destroyForcibly();
+              }
+          }, 5, TimeUnit.SECONDS);
         }
-        for (ClientPlayer player : players)
-          if (player.proc.isAlive()) {
-            logger.warn("ClientPlayer {} is not responding anymore. Killing...", player.name);
-            player.proc.destroyForcibly();
-          }
 
         if (finishedTests == totalTests)
           terminateWhenPossible = true;
-        else
+        else if (startedTests < totalTests && !terminateWhenPossible)
           prepareNewClients();
       } else {
         if (logger.isInfoEnabled() && !logger.isTraceEnabled()) {
@@ -245,7 +306,7 @@ public class TestClient extends XStreamClient {
         }
       }
     } else if (message instanceof PlayerScoreResponse) {
-      playerScores++;
+      pendingScores--;
       Score score = ((PlayerScoreResponse) message).getScore();
 
       for (ClientPlayer player : players) {
@@ -259,44 +320,24 @@ public class TestClient extends XStreamClient {
       logger.info(String.format("New score for %s: Siegpunkte %s, \u2205Wert 1 %5.2f after %s of %s tests",
               score.getDisplayName(), values.get(0).getValue(), values.get(1).getValue(), finishedTests, totalTests));
 
-      if (playerScores == 2 && (isSignificant() || terminateWhenPossible)) {
+      if (pendingScores == 0 && terminateWhenPossible) {
         printScores();
         exit(0);
       }
 
     } else if (message instanceof GamePreparedResponse) {
       logger.debug("Received PrepareGame - starting clients");
-      playerScores = 0;
       GamePreparedResponse pgm = (GamePreparedResponse) message;
+      RunningGame game = new RunningGame(preparingGames.remove());
       send(new ObservationRequest(pgm.getRoomId()));
       try {
-        for (int i = 0; i < 2; i++)
-          startPlayer(i, pgm.getReservations().get((finishedTests + i) % 2));
-
-        waiter.execute(() -> {
-          int tests = finishedTests;
-          int slept = 0;
-          while (tests == finishedTests) {
-            // Detect failed clients
-            for (ClientPlayer player : players)
-              if (!player.proc.isAlive()) {
-                logger.error("{} crashed, look into {}", player.name, logDir);
-                exit(2);
-              }
-            // TODO move timeout to GamePlugin and obtain it
-            if (slept > 200.000) {
-              logger.error("The game seems to hang, exiting!");
-              exit(2);
-            }
-            try {
-              Thread.sleep(1000);
-              slept++;
-            } catch (InterruptedException ignored) {
-              break;
-            }
-          }
-        });
-
+        for (int i = 0; i < 2; i++) {
+          String reservation = pgm.getReservations().get((game.index + i) % 2);
+          game.processes[i] = persistentPlayers ?
+              assignPersistentPlayer(i, reservation) :
+              startPlayer(i, reservation, "_game" + (game.index + 1));
+        }
+        runningGames.put(pgm.getRoomId(), game);
       } catch (IOException e) {
         e.printStackTrace();
       }
@@ -307,34 +348,91 @@ public class TestClient extends XStreamClient {
     }
   }
 
-  private void startPlayer(int id, String reservation) throws IOException {
+  /** Detects crashed clients and hanging games, runs every second on the {@link #waiter}. */
+  private void checkRunningGames() {
+    for (ClientPlayer player : players)
+      for (Process process : player.idleProcesses)
+        if (!process.isAlive()) {
+          logger.error("Idle persistent process of {} crashed, look into {}", player.name, logDir);
+          exit(2);
+        }
+    for (RunningGame game : runningGames.values()) {
+      for (int i = 0; i < players.length; i++)
+        if (!game.processes[i].isAlive()) {
+          logger.error("{} crashed in game {}, look into {}", players[i].name, game.index, logDir);
+          exit(2);
+        }
+      // TODO move timeout to GamePlugin and obtain it
+      if (System.currentTimeMillis() - game.startTime > 200_000) {
+        logger.error("Game {} seems to hang, exiting!", game.index);
+        exit(2);
+      }
+    }
+  }
+
+  /**
+   * Hands the reservation to an idle persistent process of the given player,
+   * starting a new one if all of them are busy.
+   * The process reads its reservations line by line from its standard input.
+   */
+  private Process assignPersistentPlayer(int id, String reservation) throws IOException {
     ClientPlayer player = players[id];
-    ProcessBuilder builder;
+    Process process;
+    while ((process = player.idleProcesses.poll()) != null && !process.isAlive())
+      logger.warn("Persistent process of {} has ended, discarding it", player.name);
+    if (process == null) {
+      player.persistentProcesses++;
+      logger.info("Starting persistent process {} of {}", player.persistentProcesses, player.name);
+      process = startPlayer(id, null, "_process" + player.persistentProcesses);
+    }
+    OutputStream input = process.getOutputStream();
+    input.write((reservation + "\n").getBytes(StandardCharsets.UTF_8));
+    input.flush();
+    return process;
+  }
+
+  /** Starts a client for the given reservation, or one reading its reservations from its input if it is null. */
+  private Process startPlayer(int id, String reservation, String logSuffix) throws IOException {
+    ClientPlayer player = players[id];
+    List<String> command = new ArrayList<>();
     if (player.isJar) {
       logger.debug("Invoking client {} with Java", player.name);
-      builder = new ProcessBuilder("java", "-jar", "-mx1500m", player.executable.getAbsolutePath(), "-r", reservation, "-h", host, "-p", Integer.toString(port));
+      command.addAll(Arrays.asList("java", "-jar", "-mx1500m", player.executable.getAbsolutePath(), "-h", host, "-p", Integer.toString(port)));
     } else {
       logger.debug("Invoking client {}", player.name);
-      builder = new ProcessBuilder(player.executable.getAbsolutePath(), "--reservation", reservation, "--host", host, "--port", Integer.toString(port));
+      command.addAll(Arrays.asList(player.executable.getAbsolutePath(), "--host", host, "--port", Integer.toString(port)));
     }
+    if (reservation == null)
+      command.add("--multi-game");
+    else
+      command.addAll(Arrays.asList("--reservation", reservation));
+    ProcessBuilder builder = new ProcessBuilder(command);
 
     logDir.mkdirs();
-    builder.redirectOutput(new File(logDir, players[id].name + "_game" + (finishedTests + 1) + ".log"));
-    builder.redirectError(new File(logDir, players[id].name + "_game" + (finishedTests + 1) + "-err.log"));
-    players[id].proc = builder.start();
+    builder.redirectOutput(new File(logDir, players[id].name + logSuffix + ".log"));
+    builder.redirectError(new File(logDir, players[id].name + logSuffix + "-err.log"));
+    Process process = builder.start();
     try {
       Thread.sleep(100);
     } catch (InterruptedException ignored) {
     }
+    return process;
   }
 
-  /** prepares slots for new clients (if {@link #finishedTests} is even player1 starts, otherwise player2) */
+  /**
+   * prepares slots for new clients (if {@link #startedTests} is even player1 starts, otherwise player2).
+   * With a {@link #seed}, both games of a pair are played with the same seed,
+   * so that each player gets to start the same game once.
+   */
   private void prepareNewClients() {
+    int game = startedTests++;
     SlotDescriptor[] slots = new SlotDescriptor[2];
     for (int i = 0; i < 2; i++)
-      slots[(finishedTests + i) % 2] = new SlotDescriptor(players[i].name, players[i].canTimeout);
-    logger.debug("Prepared client slots: " + Arrays.toString(slots));
-    send(new PrepareGameRequest(gameType, slots[0], slots[1], false));
+      slots[(game + i) % 2] = new SlotDescriptor(players[i].name, players[i].canTimeout);
+    logger.debug("Prepared client slots for game {}: {}", game, Arrays.toString(slots));
+    preparingGames.add(game);
+    Long gameSeed = seed == null ? null : seed + game / 2;
+    send(new PrepareGameRequest(gameType, slots[0], slots[1], false, gameSeed));
   }
 
   private static void exit(int status) {
@@ -342,11 +440,14 @@ public class TestClient extends XStreamClient {
       if(!testclient.isClosed())
         testclient.send(new CloseConnection());
       testclient.waiter.shutdownNow();
+      for (RunningGame game : testclient.runningGames.values())
+        for (Process process : game.processes)
+          process.destroyForcibly();
     }
 
     for (ClientPlayer player : players)
-      if (player.proc != null)
-        player.proc.destroyForcibly();
+      for (Process process : player.idleProcesses)
+        process.destroyForcibly();
 
     if (status != 0)
       logger.warn("Terminating with exit code " + status);
@@ -377,26 +478,6 @@ public class TestClient extends XStreamClient {
     }
   }
 
-  private boolean isSignificant() {
-    if (significance == null || finishedTests < minTests)
-      return false;
-    int n = finishedTests;
-    IntToDoubleFunction binominalPD = (int k) -> pow(0.5, k) * pow(0.5, n - k) * (factorial(n, k) / factorial(n - k));
-    players:
-    for (int i = 0; i < 2; i++) {
-      double binominalCD = 0.0;
-      // TODO use global WIN_SCORE constant instead of hardcoding 2
-      for (int k = 0; k <= players[i].score.getScoreValues().get(0).getValue().intValue() / 2; k++) {
-        binominalCD += binominalPD.applyAsDouble(k);
-        if (binominalCD > significance)
-          continue players;
-      }
-      logger.warn(String.format("%s is significantly better! Uncertainty: %.2f%%", players[(i + 1) % 2].name, binominalCD * 100));
-      return true;
-    }
-    return false;
-  }
-
   @Override
   public String shortString() {
     return String.format("TestClient(%d/%d)", finishedTests, totalTests);
@@ -420,22 +501,28 @@ class ClientPlayer {
     return String.format("ClientPlayer{name='%s', executable='%s', isJar=%s, canTimeout=%s}", name, executable, isJar, canTimeout);
   }
 
-  Process proc;
   Score score;
+
+  /** processes waiting for their next reservation with --persistent-players */
+  final Queue<Process> idleProcesses = new ConcurrentLinkedQueue<>();
+  int persistentProcesses;
 }
 
-class Util {
+/** A game whose clients have been started, numbered by the order of preparation. */
+class RunningGame {
+  final int index;
+  final long startTime = System.currentTimeMillis();
+  final Process[] processes = new Process[2];
 
-  static boolean isJar(File f) {
-    return f.getName().endsWith("jar") && f.exists();
+  RunningGame(int index) {
+    this.index = index;
   }
+}
 
-  static double factorial(int n) {
-    return n <= 1 ? 1 : factorial(n - 1) * n;
-  }
+class Util {
 
-  static double factorial(int n, int downTo) {
-    return n <= downTo ? 1 : factorial(n - 1, downTo) * n;
+  static boolean isJar(File f) {
+    return f.getName().endsWith("jar") && f.exists();
   }
 
 }
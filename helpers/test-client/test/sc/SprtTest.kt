@@ -0,0 +1,48 @@
+package sc
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.doubles.shouldBeGreaterThan
+import io.kotest.matchers.doubles.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+
+class SprtTest: WordSpec({
+    "Sprt" should {
+        "need games before deciding" {
+            val sprt = Sprt(0.0, 100.0, 0.05, 0.05)
+            sprt.llr() shouldBe 0.0
+            sprt.result() shouldBe null
+        }
+        "accept H1 after straight wins" {
+            val sprt = Sprt(0.0, 100.0, 0.05, 0.05)
+            repeat(20) { sprt.add(1.0) }
+            sprt.result() shouldBe Sprt.Result.H1
+        }
+        "accept H0 after straight losses" {
+            val sprt = Sprt(0.0, 100.0, 0.05, 0.05)
+            repeat(20) { sprt.add(0.0) }
+            sprt.result() shouldBe Sprt.Result.H0
+        }
+        "weigh wins against losses" {
+            val sprt = Sprt(0.0, 100.0, 0.05, 0.05)
+            repeat(3) { sprt.add(1.0) }
+            sprt.add(0.5)
+            sprt.add(0.0)
+            sprt.llr() shouldBeGreaterThan 0.0
+            sprt.result() shouldBe null
+            repeat(3) { sprt.add(0.0) }
+            sprt.llr() shouldBeLessThan 0.0
+        }
+        "have bounds from the error rates" {
+            val sprt = Sprt(0.0, 20.0, 0.05, 0.05)
+            sprt.lowerBound() shouldBe Math.log(0.05 / 0.95)
+            sprt.upperBound() shouldBe Math.log(0.95 / 0.05)
+        }
+        "reject invalid parameters" {
+            shouldThrow<IllegalArgumentException> { Sprt(20.0, 0.0, 0.05, 0.05) }
+            shouldThrow<IllegalArgumentException> { Sprt(0.0, 20.0, 0.0, 0.05) }
+            shouldThrow<IllegalArgumentException> { Sprt(0.0, 20.0, 0.05, 1.0) }
+            shouldThrow<IllegalArgumentException> { Sprt(0.0, 20.0, Double.NaN, 0.05) }
+        }
+    }
+})
@@ -3,12 +3,20 @@ package sc.player2021;
 import jargs.gnu.CmdLineParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sc.player2021.logic.AlphaBetaLogic;
+import sc.player2021.logic.AlphaBetaSearch;
 import sc.player2021.logic.Logic;
+import sc.player2021.logic.MctsLogic;
 import sc.plugin2021.AbstractClient;
 import sc.plugin2021.IGameHandler;
 import sc.shared.SharedConfiguration;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Random;
+import java.util.function.Function;
 
 /**
  * Hauptklasse des Clients, die über Konsolenargumente gesteuert werden kann.
@@ -18,12 +26,16 @@ public class Starter extends AbstractClient {
   private static final Logger logger = LoggerFactory.getLogger(Starter.class);
 
   public Starter(String host, int port, String reservation) {
+    this(host, port, reservation, client -> new Logic(client));
+  }
+
+  /** @param logic erzeugt die Strategie für diesen Client */
+  public Starter(String host, int port, String reservation, Function<AbstractClient, IGameHandler> logic) {
     // client starten
     super(host, port);
 
     // Strategie zuweisen
-    IGameHandler logic = new Logic(this);
-    setHandler(logic);
+    setHandler(logic.apply(this));
 
     // einem Spiel beitreten
     if (reservation == null || reservation.isEmpty()) {
@@ -33,6 +45,27 @@ public class Starter extends AbstractClient {
     }
   }
 
+  /**
+   * Bleibt mit dem Server verbunden und tritt nacheinander den Spielen bei,
+   * deren Reservierungen zeilenweise gelesen werden, bis die Eingabe endet.
+   * Für jedes Spiel wird eine neue Logik erzeugt, sobald das vorherige Spiel verlassen wurde,
+   * da die Reservierung schon vor dessen Ergebnis eintreffen kann.
+   */
+  public Starter(String host, int port, Function<AbstractClient, IGameHandler> logic, BufferedReader reservations) throws IOException, InterruptedException {
+    super(host, port);
+    setMultiGame(true);
+
+    String reservation;
+    while ((reservation = reservations.readLine()) != null) {
+      if (reservation.trim().isEmpty())
+        continue;
+      awaitGameEnd();
+      setHandler(logic.apply(this));
+      joinPreparedGame(reservation.trim());
+    }
+    stop();
+  }
+
   public static void main(String[] args) {
     System.setProperty("file.encoding", "UTF-8");
 
@@ -41,6 +74,13 @@ public class Starter extends AbstractClient {
     CmdLineParser.Option hostOption = parser.addStringOption('h', "host");
     CmdLineParser.Option portOption = parser.addIntegerOption('p', "port");
     CmdLineParser.Option reservationOption = parser.addStringOption('r', "reservation");
+    CmdLineParser.Option seedOption = parser.addStringOption('s', "seed");
+    CmdLineParser.Option multiGameOption = parser.addBooleanOption("multi-game");
+    CmdLineParser.Option mctsOption = parser.addBooleanOption("mcts");
+    CmdLineParser.Option paranoidOption = parser.addBooleanOption("paranoid");
+    CmdLineParser.Option maxNOption = parser.addBooleanOption("max-n");
+    CmdLineParser.Option hashOption = parser.addIntegerOption("hash");
+    CmdLineParser.Option ponderOption = parser.addBooleanOption("ponder");
 
     try {
       // parameter auslesen
@@ -55,10 +95,38 @@ public class Starter extends AbstractClient {
     String host = (String) parser.getOptionValue(hostOption, "localhost");
     int port = (Integer) parser.getOptionValue(portOption, SharedConfiguration.DEFAULT_PORT);
     String reservation = (String) parser.getOptionValue(reservationOption, "");
+    String seed = (String) parser.getOptionValue(seedOption);
+    boolean multiGame = (boolean) parser.getOptionValue(multiGameOption, false);
+    boolean mcts = (boolean) parser.getOptionValue(mctsOption, false);
+    boolean paranoid = (boolean) parser.getOptionValue(paranoidOption, false);
+    boolean maxN = (boolean) parser.getOptionValue(maxNOption, false);
+    int hash = (Integer) parser.getOptionValue(hashOption, AlphaBetaSearch.DEFAULT_TABLE_SIZE);
+    boolean ponder = (boolean) parser.getOptionValue(ponderOption, false);
 
     // einen neuen client erzeugen
     try {
-      new Starter(host, port, reservation);
+      Random random = seed == null ? new Random() : new Random(Long.parseLong(seed));
+      Function<AbstractClient, IGameHandler> logic;
+      if (mcts)
+        logic = MctsLogic::new;
+      else if (paranoid)
+        logic = client -> new AlphaBetaLogic(client, AlphaBetaSearch.Mode.PARANOID, hash);
+      else if (maxN)
+        logic = client -> new AlphaBetaLogic(client, AlphaBetaSearch.Mode.MAX_N, hash);
+      else
+        logic = client -> new Logic(client, random);
+      if (ponder) {
+        // vor dem Beitreten setzen, da die Strategie im Konstruktor vor dem Beitreten erzeugt wird
+        Function<AbstractClient, IGameHandler> pondering = logic;
+        logic = client -> {
+          client.setPondering(true);
+          return pondering.apply(client);
+        };
+      }
+      if (multiGame)
+        new Starter(host, port, logic, new BufferedReader(new InputStreamReader(System.in)));
+      else
+        new Starter(host, port, reservation, logic);
     } catch (Exception e) {
       logger.error("Beim Starten den Clients ist ein Fehler aufgetreten:", e);
       e.printStackTrace();
@@ -72,7 +140,16 @@ public class Starter extends AbstractClient {
     System.out.println("\nBitte das Programm mit folgenden Parametern (optional) aufrufen: \n"
             + "java -jar " + jarName + " [{-h,--host} hostname]\n"
             + "                               [{-p,--port} port]\n"
-            + "                               [{-r,--reservation} reservierung]");
+            + "                               [{-r,--reservation} reservierung]\n"
+            + "                               [{-s,--seed} seed]\n"
+            + "                               [--multi-game]\n"
+            + "                               [--mcts | --paranoid | --max-n [--hash megabyte]]\n"
+            + "                               [--ponder]\n"
+            + "Mit --multi-game werden die Reservierungen nacheinander von der Standardeingabe gelesen.\n"
+            + "Mit --mcts werden die Züge mit einer Monte-Carlo-Baumsuche auf allen Prozessorkernen gesucht,\n"
+            + "mit --paranoid und --max-n mit einer Alpha-Beta- bzw. Max-n-Suche mit iterativer Vertiefung,\n"
+            + "deren Transpositionstabelle mit --hash begrenzt wird (Standard: " + AlphaBetaSearch.DEFAULT_TABLE_SIZE + " MB).\n"
+            + "Mit --ponder denken diese Strategien während der Züge des anderen Teams voraus.");
     System.out.println("\nBeispiel: \n"
             + "java -jar " + jarName + " --host 127.0.0.1 --port 10500 --reservation 1234\n");
   }
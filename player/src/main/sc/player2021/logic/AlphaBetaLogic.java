@@ -0,0 +1,48 @@
+package sc.player2021.logic;
+
+import sc.plugin2021.AbstractClient;
+import sc.plugin2021.GameState;
+import sc.plugin2021.Move;
+
+import java.util.function.Consumer;
+
+/** Eine Logik, die ihre Züge mit einer {@link AlphaBetaSearch} auf allen Prozessorkernen sucht. */
+public class AlphaBetaLogic extends SearchLogic {
+  private final AlphaBetaSearch search;
+
+  /**
+   * Erzeugt eine neue Instanz dieser Strategie, die über den mitgegebenen Client Züge absendet.
+   *
+   * @param tableSize Speicher für die Transpositionstabelle in Megabyte
+   */
+  public AlphaBetaLogic(AbstractClient client, AlphaBetaSearch.Mode mode, int tableSize) {
+    super(client);
+    this.search = new AlphaBetaSearch(mode, Runtime.getRuntime().availableProcessors(), tableSize);
+  }
+
+  /**
+   * Erzeugt eine neue Instanz dieser Strategie, etwa für Testspiele mit weniger Zeit oder Threads.
+   * Die Suche wird mit dem Spiel beendet.
+   *
+   * @param budget Zeit für die Suche nach einem Zug in Millisekunden
+   */
+  public AlphaBetaLogic(Consumer<Move> sendMove, AlphaBetaSearch search, long budget) {
+    super(sendMove, budget);
+    this.search = search;
+  }
+
+  @Override
+  protected int search(GameState gameState, long deadline) {
+    return search.search(gameState, deadline);
+  }
+
+  @Override
+  protected String describeSearch() {
+    return String.format("%d Knoten bis Tiefe %d (%s)", search.getLastNodes(), search.getLastDepth(), search.getMode());
+  }
+
+  @Override
+  protected void close() {
+    search.close();
+  }
+}
@@ -0,0 +1,444 @@
+package sc.player2021.logic;
+
+import sc.plugin2021.Color;
+import sc.plugin2021.GameState;
+import sc.plugin2021.Team;
+import sc.plugin2021.util.Constants;
+import sc.plugin2021.util.GameRuleLogic;
+import sc.plugin2021.util.MoveList;
+import sc.plugin2021.util.PackedMove;
+import sc.plugin2021.util.UndoStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Suche mit iterativer Vertiefung für vier Farben in zwei Teams.
+ *
+ * Da Farben ausscheiden können, wechseln sich die Teams nicht zwingend ab:
+ * Jeder Knoten entscheidet anhand des Teams der Farbe am Zug, wessen Wert er optimiert.
+ * Im Modus {@link Mode#PARANOID} sind alle Werte aus Sicht von {@link Team#ONE},
+ * das Team der Farbe am Zug maximiert bzw. minimiert sie mit Alpha-Beta-Suche und Aspirationsfenstern.
+ * Im Modus {@link Mode#MAX_N} hat jede Farbe einen eigenen Wert, den sie maximiert;
+ * dabei lässt sich nicht beschneiden, sodass nur Zugsortierung und Transpositionstabelle helfen.
+ *
+ * Alle Threads vertiefen unabhängig voneinander auf eigenen Kopien des Spielstands
+ * und teilen sich die {@link TranspositionTable}, über die sie sich gegenseitig Arbeit abnehmen.
+ * Das Ergebnis stammt vom Thread, der die größte Tiefe abgeschlossen hat.
+ * Läuft die Zeit ab, gilt der beste Zug der letzten Iteration, oder ein besserer,
+ * der in der abgebrochenen Iteration bereits vollständig untersucht wurde.
+ */
+public class AlphaBetaSearch implements AutoCloseable {
+  public enum Mode {
+    /** Das gegnerische Team spielt gegen uns, die Werte sind die Differenz der Teams. */
+    PARANOID,
+    /** Jede Farbe maximiert ihre eigene Bewertung, bei Gleichstand die ihres Teampartners. */
+    MAX_N
+  }
+
+  /** Wert eines gewonnenen Spiels, zu dem die Punktedifferenz addiert wird. */
+  static final int WIN = 100_000;
+  static final int INFINITY = 1_000_000;
+  /** Halbe Breite des ersten Aspirationsfensters, etwa zehn Felder. */
+  static final int ASPIRATION_WINDOW = 10 * Evaluation.POINT_WEIGHT;
+  /** Mehr Züge, als ein Spiel haben kann. */
+  static final int MAX_PLY = (Constants.ROUND_LIMIT + 1) * 4;
+  static final int NO_MOVE = -1;
+  /** Alle so viele Knoten wird die Zeit geprüft. */
+  private static final int CLOCK_INTERVAL = 16;
+
+  private static final Color[] COLORS = Color.values();
+
+  private final Mode mode;
+  private final int threads;
+  private final TranspositionTable table;
+  private final ExecutorService executor;
+
+  private int lastDepth;
+  private long lastNodes;
+  /** Ende der laufenden Suche, wird beim Unterbrechen vorgezogen. */
+  private volatile long deadline;
+
+  /** Speicher für die Transpositionstabelle in Megabyte, wenn nicht anders angegeben. */
+  public static final int DEFAULT_TABLE_SIZE = 64;
+
+  /** Erzeugt eine Suche mit einem Thread pro verfügbarem Prozessorkern und {@link #DEFAULT_TABLE_SIZE}. */
+  public AlphaBetaSearch(Mode mode) {
+    this(mode, Runtime.getRuntime().availableProcessors(), DEFAULT_TABLE_SIZE);
+  }
+
+  /** @param tableSize Speicher für die Transpositionstabelle in Megabyte */
+  public AlphaBetaSearch(Mode mode, int threads, int tableSize) {
+    this.mode = mode;
+    this.threads = threads;
+    this.table = new TranspositionTable(tableSize);
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "alpha-beta");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Sucht bis zum gegebenen Zeitpunkt nach dem besten Zug für die Farbe am Zug.
+   * Die Transpositionstabelle bleibt für die nächsten Züge des Spiels erhalten.
+   * Wird der aufrufende Thread unterbrochen, endet die Suche vorzeitig mit dem bis dahin besten Zug
+   * und der Thread bleibt als unterbrochen markiert.
+   *
+   * @param deadline Zeitpunkt im Sinne von {@link System#nanoTime()}, bis zu dem die Suche abgeschlossen sein muss
+   * @return den besten gefundenen Zug als {@link PackedMove}
+   */
+  public int search(GameState gameState, long deadline) {
+    MoveList moves = new MoveList();
+    GameRuleLogic.collectPossibleMoves(gameState, moves);
+    lastDepth = 0;
+    lastNodes = 0;
+    if (moves.getSize() == 1)
+      return moves.get(0);
+
+    this.deadline = deadline;
+    table.newSearch();
+    List<Future<Worker>> futures = new ArrayList<>(threads);
+    SplittableRandom seeds = new SplittableRandom();
+    for (int i = 0; i < threads; i++)
+      futures.add(executor.submit(new Worker(i, new GameState(gameState), seeds.split())));
+
+    Worker best = null;
+    boolean interrupted = false;
+    for (Future<Worker> future : futures) {
+      Worker worker;
+      while (true) {
+        try {
+          worker = future.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+          this.deadline = System.nanoTime();
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Die Suche ist fehlgeschlagen", e.getCause());
+        }
+      }
+      lastNodes += worker.nodes;
+      if (best == null || worker.completedDepth > best.completedDepth)
+        best = worker;
+    }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+    lastDepth = best.completedDepth;
+    return best.rootMove;
+  }
+
+  /** @return die größte vollständig durchsuchte Tiefe der letzten Suche */
+  public int getLastDepth() {
+    return lastDepth;
+  }
+
+  /** @return die Anzahl der besuchten Knoten der letzten Suche über alle Threads */
+  public long getLastNodes() {
+    return lastNodes;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  /** Beendet die Threads der Suche. */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /** @return die Bewertung aus Sicht von {@link Team#ONE} für {@link Mode#PARANOID} */
+  static int evaluate(GameState gameState) {
+    int value = 0;
+    for (Color color : COLORS)
+      value += color.getTeam() == Team.ONE ? Evaluation.evaluate(gameState, color) : -Evaluation.evaluate(gameState, color);
+    return value;
+  }
+
+  /** @return das Ergebnis eines beendeten Spiels aus Sicht von {@link Team#ONE} für {@link Mode#PARANOID} */
+  static int terminal(GameState gameState) {
+    int difference = Evaluation.points(gameState, Team.ONE) - Evaluation.points(gameState, Team.TWO);
+    return Integer.signum(difference) * WIN + Evaluation.POINT_WEIGHT * difference;
+  }
+
+  /** @return die Bewertungen aller Farben für {@link Mode#MAX_N}, gepackt in einen Long (siehe {@link #component}) */
+  static long evaluateEach(GameState gameState, boolean gameOver) {
+    long values = 0;
+    for (Color color : COLORS) {
+      int value = gameOver ? Evaluation.POINT_WEIGHT * Evaluation.points(gameState, color) : Evaluation.evaluate(gameState, color);
+      values |= (value & 0xFFFFL) << 16 * color.ordinal();
+    }
+    return values;
+  }
+
+  /** @return die Bewertung einer Farbe aus dem Ergebnis von {@link #evaluateEach} */
+  static int component(long values, Color color) {
+    return (short) (values >>> 16 * color.ordinal());
+  }
+
+  /** Vertieft iterativ auf einer eigenen Kopie des Spielstands. */
+  final class Worker implements Callable<Worker> {
+    private final int id;
+    private final GameState gameState;
+    private final SplittableRandom random;
+    private final UndoStack history = new UndoStack(MAX_PLY);
+    private final MoveList[] moves = new MoveList[MAX_PLY];
+    private final int[][] keys = new int[MAX_PLY][];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+    long nodes;
+    boolean aborted;
+    /**
+     * Ob die aktuelle Iteration einen Knoten wegen der Tiefe statt wegen des Spielendes bewertet hat,
+     * auch in Teilbäumen, deren Wert aus der Transpositionstabelle stammt.
+     * Während der Suche gilt es für den Teilbaum des aktuellen Knotens.
+     */
+    private boolean reachedHorizon;
+    int completedDepth;
+    int rootMove = NO_MOVE;
+
+    Worker(int id, GameState gameState, SplittableRandom random) {
+      this.id = id;
+      this.gameState = gameState;
+      this.random = random;
+      for (int ply = 0; ply < MAX_PLY; ply++) {
+        moves[ply] = new MoveList(256);
+        keys[ply] = new int[256];
+        killers[ply][0] = killers[ply][1] = NO_MOVE;
+      }
+    }
+
+    @Override
+    public Worker call() {
+      // Ohne abgeschlossene Iteration gilt der nach der Sortierung erste Zug
+      generateMoves(0, NO_MOVE);
+      rootMove = nextMove(0, 0);
+      int value = 0;
+      // Jeder zweite Helfer beginnt eine Tiefe weiter, damit die Threads sich verteilen
+      for (int depth = id % 2 == 0 ? 1 : 2; depth <= MAX_PLY; depth++) {
+        reachedHorizon = false;
+        if (mode == Mode.PARANOID)
+          value = aspiration(depth, value);
+        else
+          maxN(depth, 0);
+        if (aborted)
+          break;
+        completedDepth = depth;
+        if (!reachedHorizon)
+          break;
+      }
+      return this;
+    }
+
+    /** Sucht mit einem schmalen Fenster um den Wert der letzten Iteration und erweitert es, falls er außerhalb liegt. */
+    private int aspiration(int depth, int previous) {
+      if (depth <= 2)
+        return alphaBeta(depth, -INFINITY, INFINITY, 0);
+      int delta = ASPIRATION_WINDOW;
+      int alpha = previous - delta;
+      int beta = previous + delta;
+      while (true) {
+        int value = alphaBeta(depth, alpha, beta, 0);
+        if (aborted)
+          return value;
+        if (value <= alpha)
+          alpha = Math.max(value - delta, -INFINITY);
+        else if (value >= beta)
+          beta = Math.min(value + delta, INFINITY);
+        else
+          return value;
+        delta *= 2;
+      }
+    }
+
+    /** Paranoide Alpha-Beta-Suche, fail-soft, mit Werten aus Sicht von {@link Team#ONE}. */
+    private int alphaBeta(int depth, int alpha, int beta, int ply) {
+      if (checkAborted())
+        return 0;
+      if (Evaluation.isGameOver(gameState))
+        return terminal(gameState);
+      if (depth == 0) {
+        reachedHorizon = true;
+        return evaluate(gameState);
+      }
+
+      long key = gameState.getZobristKey();
+      int hashMove = ply == 0 ? rootMove : NO_MOVE;
+      if (ply > 0 && table.probe(key, entry)) {
+        hashMove = entry.move;
+        if (entry.depth >= depth) {
+          int value = (int) entry.value;
+          if (entry.bound == TranspositionTable.EXACT
+              || entry.bound == TranspositionTable.LOWER_BOUND && value >= beta
+              || entry.bound == TranspositionTable.UPPER_BOUND && value <= alpha) {
+            reachedHorizon |= entry.horizon;
+            return value;
+          }
+        }
+      }
+
+      boolean outerHorizon = reachedHorizon;
+      reachedHorizon = false;
+
+      boolean maximizing = gameState.getCurrentColor().getTeam() == Team.ONE;
+      int originalAlpha = alpha;
+      int originalBeta = beta;
+      int best = maximizing ? -INFINITY : INFINITY;
+      int bestMove = NO_MOVE;
+      int count = generateMoves(ply, hashMove);
+      for (int i = 0; i < count; i++) {
+        int move = nextMove(ply, i);
+        play(move);
+        int value = alphaBeta(depth - 1, alpha, beta, ply + 1);
+        GameRuleLogic.undoMove(gameState, history);
+        if (aborted)
+          return 0;
+
+        if (maximizing ? value > best : value < best) {
+          best = value;
+          bestMove = move;
+          if (ply == 0 && (maximizing ? value > originalAlpha : value < originalBeta))
+            rootMove = move;
+        }
+        if (maximizing)
+          alpha = Math.max(alpha, value);
+        else
+          beta = Math.min(beta, value);
+        if (alpha >= beta) {
+          storeKiller(ply, move);
+          break;
+        }
+      }
+
+      int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+          : best >= originalBeta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+      table.store(key, best, bestMove, depth, bound, reachedHorizon);
+      reachedHorizon |= outerHorizon;
+      return best;
+    }
+
+    /** Max-n-Suche, die die Bewertungen aller Farben gepackt zurückgibt. */
+    private long maxN(int depth, int ply) {
+      if (checkAborted())
+        return 0;
+      if (Evaluation.isGameOver(gameState))
+        return evaluateEach(gameState, true);
+      if (depth == 0) {
+        reachedHorizon = true;
+        return evaluateEach(gameState, false);
+      }
+
+      long key = gameState.getZobristKey();
+      int hashMove = ply == 0 ? rootMove : NO_MOVE;
+      if (ply > 0 && table.probe(key, entry)) {
+        hashMove = entry.move;
+        if (entry.depth >= depth) {
+          reachedHorizon |= entry.horizon;
+          return entry.value;
+        }
+      }
+
+      boolean outerHorizon = reachedHorizon;
+      reachedHorizon = false;
+
+      Color color = gameState.getCurrentColor();
+      List<Color> team = color.getTeam().getColors();
+      Color partner = team.get(0) == color ? team.get(1) : team.get(0);
+      long best = 0;
+      int bestMove = NO_MOVE;
+      int count = generateMoves(ply, hashMove);
+      for (int i = 0; i < count; i++) {
+        int move = nextMove(ply, i);
+        play(move);
+        long values = maxN(depth - 1, ply + 1);
+        GameRuleLogic.undoMove(gameState, history);
+        if (aborted)
+          return 0;
+
+        int value = component(values, color);
+        if (bestMove == NO_MOVE || value > component(best, color)
+            || value == component(best, color) && component(values, partner) > component(best, partner)) {
+          best = values;
+          bestMove = move;
+          if (ply == 0)
+            rootMove = move;
+        }
+      }
+
+      table.store(key, best, bestMove, depth, TranspositionTable.EXACT, reachedHorizon);
+      reachedHorizon |= outerHorizon;
+      return best;
+    }
+
+    private boolean checkAborted() {
+      if (++nodes % CLOCK_INTERVAL == 0 && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()))
+        aborted = true;
+      return aborted;
+    }
+
+    private void play(int move) {
+      GameRuleLogic.performPackedMove(gameState, move, history);
+      GameRuleLogic.removeInvalidColors(gameState);
+    }
+
+    /**
+     * Erzeugt die Züge eines Knotens und bewertet sie für die Sortierung:
+     * zuerst der Zug aus der Transpositionstabelle, dann die Killerzüge, dann die größeren Steine.
+     * Helfer mischen gleich große Steine zufällig, damit sie andere Teilbäume zuerst untersuchen.
+     *
+     * @return die Anzahl der Züge
+     */
+    private int generateMoves(int ply, int hashMove) {
+      MoveList list = moves[ply];
+      list.clear();
+      GameRuleLogic.collectPossibleMoves(gameState, list);
+      int count = list.getSize();
+      if (keys[ply].length < count)
+        keys[ply] = new int[Math.max(count, keys[ply].length * 2)];
+      int[] key = keys[ply];
+      for (int i = 0; i < count; i++) {
+        int move = list.get(i);
+        if (move == hashMove)
+          key[i] = Integer.MAX_VALUE;
+        else if (move == killers[ply][0])
+          key[i] = Integer.MAX_VALUE - 1;
+        else if (move == killers[ply][1])
+          key[i] = Integer.MAX_VALUE - 2;
+        else
+          key[i] = PackedMove.shape(move).getSize() * 64 + (id == 0 ? 0 : random.nextInt(64));
+      }
+      return count;
+    }
+
+    /** Wählt den Zug mit der höchsten Bewertung unter den verbleibenden, sodass nach einem Schnitt nicht sortiert wurde. */
+    private int nextMove(int ply, int index) {
+      MoveList list = moves[ply];
+      int[] key = keys[ply];
+      int best = index;
+      for (int i = index + 1; i < list.getSize(); i++) {
+        if (key[i] > key[best])
+          best = i;
+      }
+      list.swap(index, best);
+      int swap = key[index];
+      key[index] = key[best];
+      key[best] = swap;
+      return list.get(index);
+    }
+
+    private void storeKiller(int ply, int move) {
+      if (killers[ply][0] != move) {
+        killers[ply][1] = killers[ply][0];
+        killers[ply][0] = move;
+      }
+    }
+  }
+}
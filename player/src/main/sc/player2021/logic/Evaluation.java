@@ -0,0 +1,52 @@
+package sc.player2021.logic;
+
+import sc.plugin2021.Color;
+import sc.plugin2021.GameState;
+import sc.plugin2021.Team;
+import sc.plugin2021.util.Constants;
+import sc.plugin2021.util.GameRuleLogic;
+
+/** Bewertungen von Spielständen, die von den Suchverfahren geteilt werden und keine Objekte anlegen. */
+public final class Evaluation {
+  /** Gewicht eines Punktes gegenüber einem möglichen Zug in {@link #evaluate}. */
+  public static final int POINT_WEIGHT = 4;
+  /** Höchstens so viele mögliche Züge einer Farbe gehen in {@link #evaluate} ein. */
+  public static final int MOBILITY_CAP = 100;
+
+  private static final Color[] COLORS = Color.values();
+
+  private Evaluation() {
+  }
+
+  /** @return ob im gegebenen Spielstand keine Züge mehr möglich sind */
+  public static boolean isGameOver(GameState gameState) {
+    return !gameState.hasValidColors() || gameState.getRound() > Constants.ROUND_LIMIT;
+  }
+
+  /** @return die aktuellen Punkte einer Farbe */
+  public static int points(GameState gameState, Color color) {
+    return GameRuleLogic.getPointsFromUndeployed(gameState.undeployedPieceShapeMask(color),
+        Boolean.TRUE.equals(gameState.getLastMoveMono().get(color)));
+  }
+
+  /** @return die aktuellen Punkte eines Teams */
+  public static int points(GameState gameState, Team team) {
+    int points = 0;
+    for (Color color : COLORS) {
+      if (color.getTeam() == team)
+        points += points(gameState, color);
+    }
+    return points;
+  }
+
+  /**
+   * Bewertet die Lage einer Farbe aus ihren Punkten und ihren möglichen Zügen,
+   * denn eine Farbe ohne Platz für ihre großen Steine verliert diese Punkte am Ende.
+   */
+  public static int evaluate(GameState gameState, Color color) {
+    int value = POINT_WEIGHT * points(gameState, color);
+    if (gameState.isValidColor(color))
+      value += Math.min(GameRuleLogic.countPossibleMoves(gameState, color), MOBILITY_CAP);
+    return value;
+  }
+}
@@ -9,6 +9,7 @@ import sc.shared.GameResult;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * Das Herz des Clients:
@@ -26,10 +27,21 @@ public class Logic implements IGameHandler {
   private GameState gameState;
   /** Aktueller eigener Spieler. */
   private Player currentPlayer;
+  /** Zufallsgenerator für die Zugwahl. */
+  private final Random random;
 
   /** Erzeugt eine neue Instanz dieser Strategie, die über den mitgegebenen Client Züge absendet. */
   public Logic(AbstractClient client) {
+    this(client, new Random());
+  }
+
+  /**
+   * Erzeugt eine neue Instanz dieser Strategie, die ihre Züge mit dem gegebenen Zufallsgenerator wählt.
+   * Mit einem festen Seed sind die Züge in einem reproduzierbaren Spiel ebenfalls reproduzierbar.
+   */
+  public Logic(AbstractClient client, Random random) {
     this.client = client;
+    this.random = random;
   }
 
   /** {@inheritDoc} */
@@ -43,7 +55,7 @@ public class Logic implements IGameHandler {
     long startTime = System.currentTimeMillis();
     log.info("Es wurde ein Zug angefordert.");
     List<Move> possibleMoves = new ArrayList<>(GameRuleLogic.getPossibleMoves(gameState));
-    sendAction(possibleMoves.get((int) (Math.random() * possibleMoves.size())));
+    sendAction(possibleMoves.get(random.nextInt(possibleMoves.size())));
   }
 
   /** {@inheritDoc} */
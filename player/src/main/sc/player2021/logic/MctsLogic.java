@@ -0,0 +1,49 @@
+package sc.player2021.logic;
+
+import sc.plugin2021.AbstractClient;
+import sc.plugin2021.GameState;
+import sc.plugin2021.Move;
+
+import java.util.function.Consumer;
+
+/** Eine Logik, die ihre Züge mit einer {@link MonteCarloTreeSearch} auf allen Prozessorkernen sucht. */
+public class MctsLogic extends SearchLogic {
+  private final MonteCarloTreeSearch search;
+
+  /** Erzeugt eine neue Instanz dieser Strategie, die über den mitgegebenen Client Züge absendet. */
+  public MctsLogic(AbstractClient client) {
+    super(client);
+    this.search = new MonteCarloTreeSearch(Runtime.getRuntime().availableProcessors());
+  }
+
+  /** Erzeugt eine neue Instanz dieser Strategie, die alle Prozessorkerne nutzt. */
+  public MctsLogic(Consumer<Move> sendMove) {
+    this(sendMove, Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET);
+  }
+
+  /**
+   * Erzeugt eine neue Instanz dieser Strategie, etwa für Testspiele mit weniger Zeit oder Threads.
+   *
+   * @param threads Anzahl der Threads der Suche
+   * @param budget Zeit für die Suche nach einem Zug in Millisekunden
+   */
+  public MctsLogic(Consumer<Move> sendMove, int threads, long budget) {
+    super(sendMove, budget);
+    this.search = new MonteCarloTreeSearch(threads);
+  }
+
+  @Override
+  protected int search(GameState gameState, long deadline) {
+    return search.search(gameState, deadline);
+  }
+
+  @Override
+  protected String describeSearch() {
+    return String.format("%d Simulationen (%d übernommen)", search.getLastIterations(), search.getLastReused());
+  }
+
+  @Override
+  protected void close() {
+    search.close();
+  }
+}
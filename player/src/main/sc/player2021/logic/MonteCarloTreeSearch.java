@@ -0,0 +1,327 @@
+package sc.player2021.logic;
+
+import sc.plugin2021.Color;
+import sc.plugin2021.GameState;
+import sc.plugin2021.Team;
+import sc.plugin2021.util.Constants;
+import sc.plugin2021.util.GameRuleLogic;
+import sc.plugin2021.util.MoveList;
+import sc.plugin2021.util.PackedMove;
+import sc.plugin2021.util.UndoStack;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte-Carlo-Baumsuche mit Wurzelparallelisierung:
+ * Jeder Thread baut auf einer eigenen Kopie des Spielstands einen eigenen Baum auf,
+ * am Ende werden die Besuche der Züge an der Wurzel über alle Bäume zusammengezählt.
+ * Da die Threads nichts teilen, skaliert die Suche etwa linear mit den Kernen.
+ *
+ * Die Simulationen arbeiten mit {@link PackedMove}s direkt auf dem Spielstand des Threads
+ * und nehmen ihre Züge danach über einen {@link UndoStack} zurück, sodass dabei keine Objekte entstehen.
+ *
+ * Wurde seit der letzten Suche genau ein Zug gespielt, etwa nach dem Vorausdenken während des gegnerischen Zuges,
+ * suchen die Threads im Teilbaum dieses Zuges weiter, statt neu zu beginnen.
+ */
+public class MonteCarloTreeSearch implements AutoCloseable {
+  /** Gewichtung der Erkundung in der UCT-Formel, für Ergebnisse zwischen 0 und 1. */
+  private static final double EXPLORATION = 0.7;
+
+  private final int threads;
+  private final ExecutorService executor;
+
+  /** Anzahl der Simulationen der letzten Suche über alle Threads. */
+  private long lastIterations;
+  /** Anzahl der Simulationen, die die letzte Suche aus der vorherigen übernommen hat. */
+  private long lastReused;
+  /** Ende der laufenden Suche, wird beim Unterbrechen vorgezogen. */
+  private volatile long deadline;
+  /** Die Bäume der letzten Suche, einer pro Thread. */
+  private final Node[] roots;
+  /** Der Spielstand an der Wurzel der letzten Suche. */
+  private GameState lastState;
+
+  /** Erzeugt eine Suche mit einem Thread pro verfügbarem Prozessorkern. */
+  public MonteCarloTreeSearch() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public MonteCarloTreeSearch(int threads) {
+    this.threads = threads;
+    this.roots = new Node[threads];
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "mcts");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Sucht bis zum gegebenen Zeitpunkt nach dem besten Zug für die Farbe am Zug.
+   * Wird der aufrufende Thread unterbrochen, endet die Suche vorzeitig mit dem bis dahin besten Zug,
+   * ihre Bäume bleiben für die nächste Suche erhalten und der Thread bleibt als unterbrochen markiert.
+   *
+   * @param deadline Zeitpunkt im Sinne von {@link System#nanoTime()}, bis zu dem die Suche abgeschlossen sein muss
+   * @return den am häufigsten besuchten Zug als {@link PackedMove}
+   */
+  public int search(GameState gameState, long deadline) {
+    MoveList moves = new MoveList();
+    GameRuleLogic.collectPossibleMoves(gameState, moves);
+    lastIterations = 0;
+    lastReused = 0;
+    if (moves.getSize() == 1)
+      return moves.get(0);
+
+    this.deadline = deadline;
+    int played = lastState == null ? -1 : findPlayedMove(lastState, gameState);
+    List<Future<Worker>> futures = new ArrayList<>(threads);
+    SplittableRandom seeds = new SplittableRandom();
+    for (int i = 0; i < threads; i++) {
+      Node root = played == -1 || roots[i] == null ? null : roots[i].child(played);
+      if (root == null)
+        root = new Node(null, 0, null);
+      root.parent = null;
+      lastReused += root.visits;
+      futures.add(executor.submit(new Worker(new GameState(gameState), seeds.split(), root)));
+    }
+
+    Map<Integer, Integer> visits = new HashMap<>();
+    boolean interrupted = false;
+    for (int index = 0; index < threads; index++) {
+      Worker worker;
+      while (true) {
+        try {
+          worker = futures.get(index).get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+          this.deadline = System.nanoTime();
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Die Suche ist fehlgeschlagen", e.getCause());
+        }
+      }
+      roots[index] = worker.root;
+      lastIterations += worker.iterations;
+      for (int i = 0; i < worker.root.childCount; i++) {
+        Node child = worker.root.children[i];
+        visits.merge(child.move, child.visits, Integer::sum);
+      }
+    }
+    lastState = new GameState(gameState);
+    if (interrupted)
+      Thread.currentThread().interrupt();
+
+    int best = moves.get(0);
+    int bestVisits = -1;
+    for (Map.Entry<Integer, Integer> entry : visits.entrySet()) {
+      if (entry.getValue() > bestVisits) {
+        best = entry.getKey();
+        bestVisits = entry.getValue();
+      }
+    }
+    return best;
+  }
+
+  /** @return die Anzahl der Simulationen der letzten Suche über alle Threads */
+  public long getLastIterations() {
+    return lastIterations;
+  }
+
+  /** @return die Anzahl der Simulationen, die die letzte Suche aus der vorherigen übernommen hat */
+  public long getLastReused() {
+    return lastReused;
+  }
+
+  /**
+   * @return den einzelnen Zug, der von {@code last} zu {@code current} geführt hat,
+   *     oder -1, falls dazwischen keiner oder mehrere gespielt wurden
+   */
+  static int findPlayedMove(GameState last, GameState current) {
+    if (current.getLastMove() == null)
+      return -1;
+    int move = PackedMove.encode(current.getLastMove());
+    MoveList moves = new MoveList();
+    GameRuleLogic.collectPossibleMoves(last, moves);
+    if (!moves.contains(move))
+      return -1;
+    GameState state = new GameState(last);
+    GameRuleLogic.performPackedMove(state, move);
+    GameRuleLogic.removeInvalidColors(state);
+    return state.getZobristKey() == current.getZobristKey() ? move : -1;
+  }
+
+  /** Beendet die Threads der Suche. */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /** Ein Knoten im Suchbaum, erreicht durch {@link #move}. */
+  static final class Node {
+    Node parent;
+    /** Der Zug, der zu diesem Knoten führt, als {@link PackedMove}. */
+    final int move;
+    /** Das Team, das {@link #move} gemacht hat und aus dessen Sicht {@link #reward} zählt. */
+    final Team team;
+
+    /** Noch nicht als Kinder angelegte Züge, die größten Steine zuletzt; null, solange nicht erzeugt. */
+    int[] untried;
+    int untriedCount;
+    Node[] children;
+    int childCount;
+
+    int visits;
+    double reward;
+
+    Node(Node parent, int move, Team team) {
+      this.parent = parent;
+      this.move = move;
+      this.team = team;
+    }
+
+    boolean isFullyExpanded() {
+      return untried != null && untriedCount == 0;
+    }
+
+    Node select() {
+      double logVisits = Math.log(visits);
+      Node best = null;
+      double bestValue = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < childCount; i++) {
+        Node child = children[i];
+        double value = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+        if (value > bestValue) {
+          best = child;
+          bestValue = value;
+        }
+      }
+      return best;
+    }
+
+    /** @return das Kind, das durch den gegebenen Zug erreicht wird, oder null */
+    Node child(int move) {
+      for (int i = 0; i < childCount; i++) {
+        if (children[i].move == move)
+          return children[i];
+      }
+      return null;
+    }
+
+    Node expand(int move, Team team) {
+      Node child = new Node(this, move, team);
+      if (children == null)
+        children = new Node[untriedCount + 1];
+      children[childCount++] = child;
+      return child;
+    }
+  }
+
+  /** Baut einen eigenen Baum auf einer eigenen Kopie des Spielstands auf, gegebenenfalls weiter als in der letzten Suche. */
+  final class Worker implements Callable<Worker> {
+    private final GameState gameState;
+    private final SplittableRandom random;
+    private final MoveList moves = new MoveList(256);
+    private final UndoStack history = new UndoStack(Constants.ROUND_LIMIT * Color.values().length);
+
+    final Node root;
+    long iterations;
+
+    Worker(GameState gameState, SplittableRandom random, Node root) {
+      this.gameState = gameState;
+      this.random = random;
+      this.root = root;
+    }
+
+    @Override
+    public Worker call() {
+      while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+        iterate();
+        iterations++;
+      }
+      return this;
+    }
+
+    /** Auswahl, Erweiterung, Simulation und Rückpropagierung, danach ist der Spielstand wieder der der Wurzel. */
+    private void iterate() {
+      Node node = root;
+      while (node.isFullyExpanded() && node.childCount > 0) {
+        node = node.select();
+        play(node.move);
+      }
+
+      if (!Evaluation.isGameOver(gameState)) {
+        if (node.untried == null)
+          generateUntried(node);
+        int move = node.untried[--node.untriedCount];
+        node = node.expand(move, gameState.getCurrentColor().getTeam());
+        play(move);
+      }
+
+      double result = playout();
+      for (; node != null; node = node.parent) {
+        node.visits++;
+        if (node.team != null)
+          node.reward += node.team == Team.ONE ? result : 1 - result;
+      }
+      while (!history.isEmpty())
+        GameRuleLogic.undoMove(gameState, history);
+    }
+
+    private void play(int move) {
+      GameRuleLogic.performPackedMove(gameState, move, history);
+      GameRuleLogic.removeInvalidColors(gameState);
+    }
+
+    /**
+     * Legt die möglichen Züge des Knotens in zufälliger Reihenfolge nach Größe des Steins aufsteigend an,
+     * damit die vielversprechenderen großen Steine zuerst erweitert werden.
+     */
+    private void generateUntried(Node node) {
+      moves.clear();
+      GameRuleLogic.collectPossibleMoves(gameState, moves);
+      int size = moves.getSize();
+      for (int i = size - 1; i > 0; i--)
+        moves.swap(i, random.nextInt(i + 1));
+      int[] untried = new int[size];
+      int index = 0;
+      for (int pieceSize = 1; pieceSize <= 5; pieceSize++) {
+        for (int i = 0; i < size; i++) {
+          if (PackedMove.shape(moves.get(i)).getSize() == pieceSize)
+            untried[index++] = moves.get(i);
+        }
+      }
+      node.untried = untried;
+      node.untriedCount = index;
+    }
+
+    /**
+     * Spielt zufällig bis zum Spielende, wobei von zwei gezogenen Zügen der mit dem größeren Stein gewinnt.
+     *
+     * @return das Ergebnis aus Sicht von {@link Team#ONE}: 1 für einen Sieg, 0.5 für ein Unentschieden und 0 sonst
+     */
+    private double playout() {
+      while (!Evaluation.isGameOver(gameState)) {
+        moves.clear();
+        GameRuleLogic.collectPossibleMoves(gameState, moves);
+        int size = moves.getSize();
+        int move = moves.get(random.nextInt(size));
+        int other = moves.get(random.nextInt(size));
+        if (PackedMove.shape(other).getSize() > PackedMove.shape(move).getSize())
+          move = other;
+        play(move);
+      }
+      int one = Evaluation.points(gameState, Team.ONE);
+      int two = Evaluation.points(gameState, Team.TWO);
+      return one > two ? 1 : one < two ? 0 : 0.5;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package sc.player2021.logic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sc.framework.plugins.Player;
+import sc.plugin2021.*;
+import sc.plugin2021.util.Constants;
+import sc.plugin2021.util.PackedMove;
+import sc.shared.GameResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Grundlage für Logiken, die ihre Züge innerhalb eines Zeitbudgets suchen.
+ * Das Budget wird ab der Anforderung des Zuges gemessen. Am Server bestimmt es der {@link TimeManager} des Clients
+ * aus der gemessenen Netzwerklatenz, sonst liegt es fest {@link #SAFETY_MARGIN} Millisekunden
+ * vor dem {@link Constants#SOFT_TIMEOUT}.
+ */
+public abstract class SearchLogic implements IGameHandler {
+  private static final Logger log = LoggerFactory.getLogger(SearchLogic.class);
+
+  /** Sicherheitsabstand zum Soft-Timeout in Millisekunden, für das Zusammenführen der Threads, Netzwerk und GC. */
+  public static final long SAFETY_MARGIN = 300;
+  /** Standardbudget für die Suche nach einem Zug in Millisekunden. */
+  public static final long DEFAULT_BUDGET = Constants.SOFT_TIMEOUT - SAFETY_MARGIN;
+
+  /** Nimmt die Züge entgegen, normalerweise {@link AbstractClient#sendMove}. */
+  private final Consumer<Move> sendMove;
+  /** Zeit für die Suche nach einem Zug in Millisekunden, falls es keinen {@link #timeManager} gibt. */
+  private final long budget;
+  /** Bestimmt die verbleibende Zeit für einen Zug, oder null für ein festes {@link #budget}. */
+  private final TimeManager timeManager;
+  /** Aktueller Spielstatus. */
+  private GameState gameState;
+
+  /** @param budget Zeit für die Suche nach einem Zug in Millisekunden */
+  protected SearchLogic(Consumer<Move> sendMove, long budget) {
+    this.sendMove = sendMove;
+    this.budget = budget;
+    this.timeManager = null;
+  }
+
+  /** Sendet die Züge über den Client und sucht so lange, wie dessen {@link TimeManager} erlaubt. */
+  protected SearchLogic(AbstractClient client) {
+    this.sendMove = client::sendMove;
+    this.budget = DEFAULT_BUDGET;
+    this.timeManager = client.getTimeManager();
+  }
+
+  /**
+   * Sucht einen Zug für die Farbe am Zug.
+   *
+   * @param deadline Zeitpunkt im Sinne von {@link System#nanoTime()}, bis zu dem ein Zug feststehen muss
+   * @return den gewählten Zug als {@link PackedMove}
+   */
+  protected abstract int search(GameState gameState, long deadline);
+
+  /** @return eine kurze Beschreibung der letzten Suche für das Log */
+  protected abstract String describeSearch();
+
+  /** Gibt die Ressourcen der Suche frei, sobald das Spiel beendet ist. */
+  protected abstract void close();
+
+  /** {@inheritDoc} */
+  @Override
+  public void gameEnded(GameResult data, Team color, String errorMessage) {
+    log.info("Das Spiel ist beendet.");
+    close();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void onRequestAction() {
+    long startTime = System.nanoTime();
+    log.info("Es wurde ein Zug angefordert.");
+    long deadline = timeManager != null ? timeManager.getDeadline() : startTime + TimeUnit.MILLISECONDS.toNanos(budget);
+    int move = search(gameState, deadline);
+    Move decoded = PackedMove.decode(move);
+    log.info("Zug nach {} in {} ms: {}", describeSearch(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), decoded);
+    sendAction(decoded);
+  }
+
+  /** Sucht ohne Zeitlimit, bis der Client den Thread unterbricht, sodass die Ergebnisse dem nächsten Zug zugutekommen. */
+  @Override
+  public void ponder(GameState gameState) {
+    long startTime = System.nanoTime();
+    search(gameState, Long.MAX_VALUE);
+    log.debug("Vorausgedacht mit {} in {} ms", describeSearch(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void onUpdate(Player player, Player otherPlayer) {
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void onUpdate(GameState gameState) {
+    this.gameState = gameState;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void sendAction(Move move) {
+    sendMove.accept(move);
+  }
+
+}
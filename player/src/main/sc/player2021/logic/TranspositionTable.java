@@ -0,0 +1,122 @@
+package sc.player2021.logic;
+
+import sc.plugin2021.GameState;
+
+import java.util.Arrays;
+
+/**
+ * Transpositionstabelle fester Größe nach {@link GameState#getZobristKey()}, die sich alle Threads einer Suche teilen.
+ *
+ * Jeder Platz besteht aus drei Longs in einem gemeinsamen Array: dem Schlüssel, verknüpft per XOR mit den beiden anderen,
+ * dem Wert und den Metadaten (Zug, Tiefe, Art der Schranke, Generation, Horizont).
+ * Threads lesen und schreiben ohne Sperren; ein gleichzeitig überschriebener oder zerrissener Platz
+ * besteht die XOR-Prüfung nicht und gilt als leer.
+ * Weder {@link #probe} noch {@link #store} legen Objekte an.
+ *
+ * Ein Platz wird nur von einer mindestens gleich tiefen Suche oder aus einer neueren Generation überschrieben,
+ * sodass teure Ergebnisse erhalten bleiben, bis {@link #newSearch()} sie veralten lässt.
+ */
+public class TranspositionTable {
+  /** Der Wert ist exakt. */
+  public static final int EXACT = 0;
+  /** Der Wert ist eine untere Schranke, die Suche wurde am oberen Ende des Fensters abgebrochen. */
+  public static final int LOWER_BOUND = 1;
+  /** Der Wert ist eine obere Schranke, kein Zug hat das untere Ende des Fensters überschritten. */
+  public static final int UPPER_BOUND = 2;
+
+  private static final int SLOT_WORDS = 3;
+  private static final int SLOT_BYTES = SLOT_WORDS * Long.BYTES;
+
+  // Aufbau der Metadaten (vom niedrigsten Bit an): Zug + 1 (22 Bit), Tiefe (8 Bit), Schranke (2 Bit), Generation (8 Bit), belegt (1 Bit), Horizont (1 Bit)
+  private static final int MOVE_BITS = 22;
+  private static final int DEPTH_SHIFT = MOVE_BITS;
+  private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+  private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+  private static final long USED = 1L << GENERATION_SHIFT + 8;
+  private static final long HORIZON = USED << 1;
+
+  /** Nimmt das Ergebnis von {@link #probe} auf, damit dabei keine Objekte entstehen; pro Thread eine Instanz. */
+  public static final class Entry {
+    /** Der Wert, dessen Bedeutung von der Suche abhängt. */
+    public long value;
+    /** Der beste gefundene Zug als PackedMove, oder -1. */
+    public int move;
+    public int depth;
+    public int bound;
+    /** Ob der Wert auf Bewertungen am Suchhorizont beruht, statt auf bis zum Spielende durchsuchten Zügen. */
+    public boolean horizon;
+  }
+
+  private final long[] slots;
+  private final int mask;
+  private int generation;
+
+  /** @param megabytes Speicher für die Tabelle, abgerundet auf eine Zweierpotenz an Plätzen */
+  public TranspositionTable(int megabytes) {
+    long count = Long.highestOneBit(Math.max((long) megabytes << 20, SLOT_BYTES) / SLOT_BYTES);
+    count = Math.min(count, Integer.highestOneBit(Integer.MAX_VALUE / SLOT_WORDS));
+    slots = new long[(int) count * SLOT_WORDS];
+    mask = (int) count - 1;
+  }
+
+  /** @return die Anzahl der Plätze */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /** Beginnt eine neue Suche, deren Einträge die der vorherigen unabhängig von der Tiefe ersetzen. */
+  public void newSearch() {
+    generation = generation + 1 & 0xFF;
+  }
+
+  /**
+   * Sucht den Eintrag zum gegebenen Schlüssel.
+   *
+   * @param entry nimmt den Eintrag auf, falls einer gefunden wurde
+   * @return ob ein Eintrag gefunden wurde
+   */
+  public boolean probe(long key, Entry entry) {
+    int index = index(key);
+    long check = slots[index];
+    long value = slots[index + 1];
+    long meta = slots[index + 2];
+    if ((check ^ value ^ meta) != key || (meta & USED) == 0)
+      return false;
+    entry.value = value;
+    entry.move = (int) (meta & (1 << MOVE_BITS) - 1) - 1;
+    entry.depth = (int) (meta >>> DEPTH_SHIFT & 0xFF);
+    entry.bound = (int) (meta >>> BOUND_SHIFT & 0x3);
+    entry.horizon = (meta & HORIZON) != 0;
+    return true;
+  }
+
+  /**
+   * Speichert ein Suchergebnis, sofern der Platz nicht ein tieferes Ergebnis der aktuellen Generation enthält.
+   *
+   * @param move der beste Zug als PackedMove, oder -1
+   * @param depth die Suchtiefe, höchstens 255
+   * @param horizon ob die Suche unterhalb des Platzes Knoten am Suchhorizont bewertet hat
+   */
+  public void store(long key, long value, int move, int depth, int bound, boolean horizon) {
+    int index = index(key);
+    long meta = slots[index + 2];
+    if ((meta & USED) != 0
+        && (int) (meta >>> GENERATION_SHIFT & 0xFF) == generation
+        && (int) (meta >>> DEPTH_SHIFT & 0xFF) > depth)
+      return;
+    meta = (move + 1L) | (long) depth << DEPTH_SHIFT | (long) bound << BOUND_SHIFT
+        | (long) generation << GENERATION_SHIFT | USED | (horizon ? HORIZON : 0);
+    slots[index] = key ^ value ^ meta;
+    slots[index + 1] = value;
+    slots[index + 2] = meta;
+  }
+
+  public void clear() {
+    Arrays.fill(slots, 0);
+  }
+
+  /** @return den Index des ersten Longs des Platzes für den Schlüssel */
+  private int index(long key) {
+    return ((int) (key ^ key >>> 32) & mask) * SLOT_WORDS;
+  }
+}
@@ -5,11 +5,36 @@ sourceSets {
         java.setSrcDirs(listOf("src/shared", "src/client", "src/server"))
         resources.setSrcDirs(listOf("src/resources"))
     }
+    // game positions shared by the tests and the benchmark project
+    val testFixtures by creating {
+        java.setSrcDirs(listOf("src/testFixtures"))
+        compileClasspath += main.get().output
+        runtimeClasspath += main.get().output
+    }
     test {
         java.setSrcDirs(listOf("src/test"))
+        compileClasspath += testFixtures.output
+        runtimeClasspath += testFixtures.output
+    }
+}
+
+configurations {
+    val testFixturesApi by getting { extendsFrom(api.get()) }
+    val testFixtures by creating {
+        extendsFrom(testFixturesApi)
+        isCanBeResolved = false
+        isCanBeConsumed = true
     }
 }
 
+artifacts {
+    val kt = tasks["compileTestFixturesKotlin"]
+    add("testFixtures", kt.outputs.files.singleFile) {
+        builtBy(kt)
+    }
+}
+configurations.archives.get().artifacts.removeIf { it.name == "testFixtures" }
+
 dependencies {
     api(project(":sdk"))
     
@@ -20,4 +45,20 @@ tasks {
     jar {
         archiveBaseName.set(game)
     }
+    
+    val benchmarkTurn by creating(JavaExec::class) {
+        group = "verification"
+        description = "Measures the duration of a server turn, pass -Pgames=N to change the number of games"
+        classpath = sourceSets.test.get().runtimeClasspath
+        main = "sc.plugin2021.benchmark.TurnBenchmark"
+        args = listOfNotNull(project.findProperty("games")?.toString())
+    }
+    
+    val perft by creating(JavaExec::class) {
+        group = "verification"
+        description = "Counts the leaves of the game tree from fixed positions and reports nodes per second, pass -Piterations=N to change the number of runs"
+        classpath = sourceSets.test.get().runtimeClasspath
+        main = "sc.plugin2021.benchmark.PerftBenchmark"
+        args = listOfNotNull(project.findProperty("iterations")?.toString())
+    }
 }
@@ -13,6 +13,8 @@ import sc.protocol.responses.ProtocolMessage
 import sc.shared.GameResult
 import sc.shared.WelcomeMessage
 import java.net.ConnectException
+import java.util.concurrent.CountDownLatch
+import kotlin.concurrent.thread
 import kotlin.system.exitProcess
 
 /**
@@ -25,13 +27,34 @@ abstract class AbstractClient(
 ): ILobbyClientListener {
     companion object {
         private val logger = LoggerFactory.getLogger(AbstractClient::class.java)
+        
+        /** Milliseconds between two pings measuring the round-trip time for the [timeManager]. */
+        const val PING_INTERVAL = 1000L
     }
     
     var isGameOver = false
     
-    /** The handler reacts to messages from the server received by the lobby client. */
+    /**
+     * Whether the client stays connected after a game has ended,
+     * so that it can join further games through [joinPreparedGame].
+     * The client then has to be [stop]ped explicitly.
+     */
+    var isMultiGame = false
+    
+    /** Whether [IGameHandler.ponder] is called while the other team is to move. */
+    var isPondering = false
+    
+    /**
+     * The handler reacts to messages from the server received by the lobby client.
+     * In [isMultiGame] mode it may only be replaced after [awaitGameEnd].
+     */
+    @Volatile
     protected var handler: IGameHandler? = null
     
+    /** Released when the game joined last has been left, see [awaitGameEnd]. */
+    @Volatile
+    private var gameLeft = CountDownLatch(0)
+    
     /** The lobby client that connects to the room. Stops on connection failure. */
     private val client: LobbyClient = try {
         LobbyClient(host, port)
@@ -40,10 +63,16 @@ abstract class AbstractClient(
         exitProcess(1)
     }
     
+    /** Tracks the time left for the current move, accounting for the measured network latency. */
+    val timeManager = TimeManager(client.roundTrip)
+    
     /** Storage for the reason of a rule violation, if any occurs. */
     var error: String? = null
         private set
     
+    /** The thread running [IGameHandler.ponder], if any. */
+    private var ponderThread: Thread? = null
+    
     /** Current room of the player. */
     private lateinit var roomId: String
     
@@ -58,7 +87,11 @@ abstract class AbstractClient(
     /** Called for any new message sent to the game room, e.g., move requests. */
     override fun onRoomMessage(roomId: String, data: ProtocolMessage) {
         when(data) {
-            is MoveRequest -> handler?.onRequestAction()
+            is MoveRequest -> {
+                timeManager.startMove(client.receiveTime)
+                stopPondering()
+                handler?.onRequestAction()
+            }
             is WelcomeMessage -> team = Team.valueOf(data.color.toUpperCase())
         }
         this.roomId = roomId
@@ -80,7 +113,10 @@ abstract class AbstractClient(
      */
     override fun onNewState(roomId: String, state: IGameState) {
         val gameState = state as GameState
+        if (team != null && gameState.currentTeam == team)
+            timeManager.stateReceived(client.receiveTime)
         logger.debug("$this got a new state $gameState")
+        stopPondering()
     
         if (team == null || !gameState.hasValidColors())
             return
@@ -91,17 +127,57 @@ abstract class AbstractClient(
             handler?.onUpdate(gameState.otherPlayer, gameState.currentPlayer)
         }
         handler?.onUpdate(gameState)
+        if (isPondering && gameState.currentTeam != team)
+            startPondering(gameState)
+    }
+    
+    /** Calls [IGameHandler.ponder] with [gameState] on a new thread. */
+    private fun startPondering(gameState: GameState) {
+        val handler = handler ?: return
+        ponderThread = thread(name = "ponder", isDaemon = true) {
+            try {
+                handler.ponder(gameState)
+            } catch (e: Exception) {
+                logger.warn("$this: Pondering failed", e)
+            }
+        }
     }
     
-    /** Start the LobbyClient [client] and listen to it. */
+    /** Interrupts [IGameHandler.ponder] and waits for it to return, so the handler is never called concurrently. */
+    private fun stopPondering() {
+        val thread = ponderThread ?: return
+        ponderThread = null
+        thread.interrupt()
+        thread.join()
+    }
+    
+    /** Start the LobbyClient [client] and listen to it, unless that already happened for a previous game. */
     private fun start() {
+        if (client.isReady)
+            return
         client.start()
         client.addListener(this)
+        client.startPinging(PING_INTERVAL)
+    }
+    
+    /** Resets the state of the previous game before joining a new one. */
+    private fun prepareForGame() {
+        gameLeft = CountDownLatch(1)
+        isGameOver = false
+        error = null
+        team = null
+    }
+    
+    /** Disconnects from the server, needed to end a client in [isMultiGame] mode. */
+    fun stop() {
+        stopPondering()
+        client.stop()
     }
     
     /** [start] and join any game with the appropriate [gameType]. */
     fun joinAnyGame() {
         start()
+        prepareForGame()
         client.joinRoomRequest(GamePlugin.PLUGIN_UUID)
     }
     
@@ -112,17 +188,32 @@ abstract class AbstractClient(
     
     override fun onGameLeft(roomId: String) {
         logger.info("$this: Got game left in room $roomId")
-        client.stop()
+        if (!isMultiGame)
+            client.stop()
+        gameLeft.countDown()
     }
     
+    /**
+     * Blocks until the game joined last has been left.
+     * The server sends the result before, so [IGameHandler.gameEnded] has returned by then
+     * and the handler can be replaced for the next game.
+     * Returns immediately if no game has been joined.
+     */
+    @Throws(InterruptedException::class)
+    fun awaitGameEnd() =
+            gameLeft.await()
+    
     override fun onGameOver(roomId: String, data: GameResult) {
         logger.info("$this: Game over with result $data")
         isGameOver = true
+        stopPondering()
         handler?.gameEnded(data, team, error)
     }
     
+    /** Joins the game prepared with the given [reservation], in [isMultiGame] mode also after a previous game. */
     fun joinPreparedGame(reservation: String) {
         start()
+        prepareForGame()
         client.joinPreparedGame(reservation)
     }
 }
@@ -30,6 +30,17 @@ interface IGameHandler {
      */
     fun onRequestAction()
     
+    /**
+     * Wird auf einem eigenen Thread aufgerufen, wenn eine Farbe des anderen Teams am Zug ist,
+     * sofern [AbstractClient.isPondering] gesetzt ist.
+     * Die Logik kann hier vorausdenken, bis der Thread unterbrochen wird,
+     * und die Ergebnisse im nächsten [onRequestAction] weiterverwenden.
+     * Der Client wartet auf die Rückkehr dieser Methode, bevor er den nächsten Spielstand oder die nächste Zuganfrage weitergibt.
+     *
+     * @param gameState der Spielstand, der auch an [onUpdate] übergeben wurde und nicht verändert werden darf
+     */
+    fun ponder(gameState: GameState) {}
+    
     /**
      * Sendet dem Spielserver den gegebenen Zug.
      * Diese Funktion sollte auf eine Zuganfrage vom Server folgen.
@@ -0,0 +1,76 @@
+package sc.plugin2021
+
+import sc.networking.clients.RoundTripEstimator
+import sc.plugin2021.util.Constants
+import java.util.concurrent.TimeUnit
+
+/**
+ * Keeps track of the time left for the current move.
+ *
+ * The server measures the [Constants.SOFT_TIMEOUT] from sending the move request until it has read the move.
+ * It sends the new state right before the request, so the clock starts when that state has been received,
+ * and handling the state and stopping to ponder count against the move.
+ * The network is estimated from the [roundTrip] time measured by the lobby client,
+ * using the smoothed value plus four deviations.
+ * [reserve] is kept back on top of that, also for parsing the state, which happens before it is received.
+ */
+class TimeManager(
+        private val roundTrip: RoundTripEstimator,
+        private val timeout: Long = Constants.SOFT_TIMEOUT,
+        private val reserve: Long = RESERVE
+) {
+    companion object {
+        /** Milliseconds assumed for the round trip until the first one has been measured. */
+        const val DEFAULT_LATENCY = 200L
+        /** Milliseconds always kept back, e.g. for garbage collection or stopping search threads. */
+        const val RESERVE = 100L
+    }
+
+    /** [System.nanoTime] at which the current move was requested. */
+    var moveStart = System.nanoTime()
+        private set
+
+    /** [System.nanoTime] at which a state with the own team to move was received, or null. */
+    private var stateTime: Long? = null
+
+    /**
+     * Notes that a state in which the own team is to move was received at [now],
+     * so that the following [startMove] counts from there.
+     */
+    @JvmOverloads
+    fun stateReceived(now: Long = System.nanoTime()) {
+        stateTime = now
+    }
+
+    /**
+     * Starts the clock for a move requested at [now], called by the client on each move request.
+     * Counts from the preceding [stateReceived] instead, if there was one.
+     */
+    @JvmOverloads
+    fun startMove(now: Long = System.nanoTime()) {
+        moveStart = stateTime ?: now
+        stateTime = null
+    }
+
+    /** The estimated time in milliseconds the network takes away from each move. */
+    val latency: Long
+        get() = ceilMillis(roundTrip.upperBoundNanos(TimeUnit.MILLISECONDS.toNanos(DEFAULT_LATENCY)))
+
+    /** The milliseconds a move may safely take from its request until it is sent. */
+    val budget: Long
+        get() = (timeout - latency - reserve).coerceAtLeast(0)
+
+    /** The [System.nanoTime] by which the current move has to be sent. */
+    val deadline: Long
+        get() = moveStart + TimeUnit.MILLISECONDS.toNanos(budget)
+
+    /** The milliseconds left for the current move. */
+    fun remaining(): Long =
+            TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()).coerceAtLeast(0)
+
+    private fun ceilMillis(nanos: Long) =
+            (nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1)
+
+    override fun toString() =
+            "TimeManager(budget=${budget}ms, latency=${latency}ms, $roundTrip)"
+}
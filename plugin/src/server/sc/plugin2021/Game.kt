@@ -11,12 +11,16 @@ import sc.plugin2021.util.WinReason
 import sc.protocol.responses.ProtocolMessage
 import sc.shared.*
 
-class Game: AbstractGame<Player>(GamePlugin.PLUGIN_UUID) {
+/**
+ * A game of Blokus on the server.
+ * @param seed determines the start piece, so that games with the same seed and moves play out identically
+ */
+class Game @JvmOverloads constructor(seed: Long? = null): AbstractGame<Player>(GamePlugin.PLUGIN_UUID) {
     companion object {
         val logger = LoggerFactory.getLogger(Game::class.java)
     }
     
-    override val currentState = GameState()
+    override val currentState = if (seed == null) GameState() else GameState(seed)
 
     private val availableTeams = mutableListOf(Team.ONE, Team.TWO)
     override fun onPlayerJoined(): Player {
@@ -17,6 +17,8 @@ class GamePlugin: IGamePlugin {
     
     override fun createGame(): IGameInstance = Game()
     
+    override fun createGame(seed: Long): IGameInstance = Game(seed)
+    
     override fun getScoreDefinition(): ScoreDefinition =
             ScoreDefinition(arrayOf(
                     ScoreFragment("Gewinner"),
@@ -0,0 +1,170 @@
+package sc.plugin2021.arena
+
+import org.slf4j.LoggerFactory
+import sc.framework.plugins.Player
+import sc.plugin2021.Game
+import sc.plugin2021.GamePlugin
+import sc.plugin2021.GameState
+import sc.plugin2021.IGameHandler
+import sc.plugin2021.Move
+import sc.plugin2021.Team
+import sc.plugin2021.util.Constants
+import sc.plugin2021.util.GameRuleLogic
+import sc.shared.GameResult
+import sc.shared.InvalidMoveException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.function.Consumer
+
+/**
+ * Plays games between two strategies in a single process, without a server or any sockets.
+ *
+ * Each game drives a [Game] and its [GameState] directly, performing moves like the server does.
+ * The strategies are [IGameHandler]s, which receive the same callbacks as in a client
+ * and hand their move to the arena through the sink given to their [HandlerFactory].
+ * A move that takes longer than [softTimeout] milliseconds loses the game,
+ * a handler that does not answer within [hardTimeout] milliseconds is abandoned.
+ * The handlers are called on the thread of their game, so a handler that blocks in
+ * [IGameHandler.onRequestAction] is only timed out once it returns.
+ *
+ * The contestants swap teams after every game, and with a seed both games of a pair use the same seed.
+ */
+class Arena @JvmOverloads constructor(
+        val first: Contestant,
+        val second: Contestant,
+        val softTimeout: Long = Constants.SOFT_TIMEOUT,
+        val hardTimeout: Long = Constants.HARD_TIMEOUT
+) {
+    companion object {
+        private val logger = LoggerFactory.getLogger(Arena::class.java)
+        private val scoreDefinition = GamePlugin().scoreDefinition
+    }
+
+    /** Creates a fresh [IGameHandler] for every game, which sends its moves to [sendMove]. */
+    fun interface HandlerFactory {
+        fun create(sendMove: Consumer<Move>): IGameHandler
+    }
+
+    /** A strategy taking part in the arena. */
+    data class Contestant(val name: String, val handlerFactory: HandlerFactory)
+
+    /**
+     * Plays [games] games on [threads] threads and blocks until all of them are finished.
+     * @param seed seed of the first game pair, every following pair increments it; random games if null
+     */
+    @JvmOverloads
+    fun play(games: Int, threads: Int = Runtime.getRuntime().availableProcessors(), seed: Long? = null): ArenaResult {
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+            val futures = (0 until games).map { index ->
+                executor.submit<ArenaGame> { playGame(index, seed?.plus(index / 2)) }
+            }
+            val result = ArenaResult(first.name, second.name)
+            futures.forEach { future ->
+                try {
+                    result.add(future.get())
+                } catch (e: ExecutionException) {
+                    throw IllegalStateException("Arena game failed", e.cause)
+                }
+            }
+            return result
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * Plays a single game, on even indices [first] is [Team.ONE].
+     * @return the outcome of the game from the view of [first]
+     */
+    @JvmOverloads
+    fun playGame(index: Int, seed: Long? = null): ArenaGame {
+        val game = Game(seed)
+        val contestants = if (index % 2 == 0) listOf(first, second) else listOf(second, first)
+        val seats = contestants.map { contestant ->
+            val player = game.onPlayerJoined()
+            player.displayName = contestant.name
+            Seat(player, contestant)
+        }
+        val state = game.currentState
+
+        while (!game.isGameOver) {
+            seats.forEach { it.update(state) }
+            val seat = seats.first { it.player.color == state.currentTeam }
+            val move = seat.requestMove() ?: break
+            try {
+                GameRuleLogic.performMove(state, move)
+            } catch (e: InvalidMoveException) {
+                logger.debug("{} sent an invalid move: {}", seat.player, e.message)
+                seat.player.violationReason = e.message
+                break
+            }
+            GameRuleLogic.removeInvalidColors(state)
+        }
+
+        val scores = seats.map { game.getScoreFor(it.player) }
+        val result = GameResult(scoreDefinition, scores, game.winners)
+        seats.forEach { it.handler.gameEnded(result, it.player.color as Team, it.player.violationReason) }
+
+        val (firstSeat, secondSeat) = if (index % 2 == 0) seats else seats.asReversed()
+        return ArenaGame(index, seed, result, firstSeat.record(game), secondSeat.record(game))
+    }
+
+    /** The arena side of one player in a game. */
+    private inner class Seat(val player: Player, contestant: Contestant) {
+        @Volatile
+        private var pendingMove: CompletableFuture<Move>? = null
+
+        val handler: IGameHandler = contestant.handlerFactory.create(Consumer { move -> pendingMove?.complete(move) })
+
+        var moves = 0
+        var moveTime = 0L
+        var maxMoveTime = 0L
+
+        fun update(state: GameState) {
+            val team = player.color as Team
+            handler.onUpdate(state.getPlayer(team), state.getPlayer(team.opponent()))
+            handler.onUpdate(state.clone())
+        }
+
+        /** @return the move of the handler, or null if it failed to send one in time */
+        fun requestMove(): Move? {
+            val request = CompletableFuture<Move>()
+            pendingMove = request
+            val start = System.nanoTime()
+            try {
+                handler.onRequestAction()
+                val remaining = hardTimeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                val move = request.get(remaining.coerceAtLeast(0), TimeUnit.MILLISECONDS)
+                val time = System.nanoTime() - start
+                moves++
+                moveTime += time
+                maxMoveTime = maxOf(maxMoveTime, time)
+                if (time > TimeUnit.MILLISECONDS.toNanos(softTimeout)) {
+                    logger.debug("{} hit the soft timeout after {}ms", player, TimeUnit.NANOSECONDS.toMillis(time))
+                    player.softTimeout = true
+                    return null
+                }
+                return move
+            } catch (e: TimeoutException) {
+                logger.debug("{} hit the hard timeout", player)
+                player.hardTimeout = true
+            } catch (e: Exception) {
+                logger.warn("$player failed to send a move", e)
+                player.left = true
+            } finally {
+                pendingMove = null
+            }
+            return null
+        }
+
+        fun record(game: Game) = ArenaGame.Side(
+                player.color as Team,
+                game.getScoreFor(player),
+                game.currentState.getPointsForPlayer(player.color),
+                moves, moveTime, maxMoveTime)
+    }
+}
@@ -0,0 +1,39 @@
+package sc.plugin2021.arena
+
+import sc.plugin2021.Team
+import sc.plugin2021.util.Constants
+import sc.shared.GameResult
+import sc.shared.PlayerScore
+import sc.shared.ScoreCause
+
+/** The outcome of a single game in the [Arena], split into the sides of both contestants. */
+data class ArenaGame(
+        val index: Int,
+        val seed: Long?,
+        val result: GameResult,
+        val first: Side,
+        val second: Side
+) {
+    /**
+     * How one contestant fared in a game.
+     * @property moveTime total time in nanoseconds between move requests and answers
+     * @property maxMoveTime longest answer in nanoseconds
+     */
+    data class Side(
+            val team: Team,
+            val score: PlayerScore,
+            val points: Int,
+            val moves: Int,
+            val moveTime: Long,
+            val maxMoveTime: Long
+    ) {
+        val isWin: Boolean
+            get() = score.parts[0].toInt() == Constants.WIN_SCORE
+        val isDraw: Boolean
+            get() = score.parts[0].toInt() == Constants.DRAW_SCORE
+        val isLoss: Boolean
+            get() = score.parts[0].toInt() == Constants.LOSE_SCORE
+        val isRegular: Boolean
+            get() = score.cause == ScoreCause.REGULAR
+    }
+}
@@ -0,0 +1,72 @@
+package sc.plugin2021.arena
+
+import sc.shared.ScoreCause
+
+/** Aggregates the [ArenaGame]s between two contestants, from the view of the first one. */
+class ArenaResult(val firstName: String, val secondName: String) {
+    /** Totals of one contestant over all games. */
+    class Totals {
+        var wins = 0
+            private set
+        var draws = 0
+            private set
+        var losses = 0
+            private set
+        var points = 0L
+            private set
+        var moves = 0L
+            private set
+        var moveTime = 0L
+            private set
+        var maxMoveTime = 0L
+            private set
+        /** Number of games lost by anything but the score, keyed by cause. */
+        val irregular = mutableMapOf<ScoreCause, Int>()
+
+        /** Average time per move in milliseconds. */
+        val averageMoveMillis: Double
+            get() = if (moves == 0L) 0.0 else moveTime / 1e6 / moves
+
+        val maxMoveMillis: Double
+            get() = maxMoveTime / 1e6
+
+        internal fun add(side: ArenaGame.Side) {
+            when {
+                side.isWin -> wins++
+                side.isDraw -> draws++
+                else -> losses++
+            }
+            points += side.points
+            moves += side.moves
+            moveTime += side.moveTime
+            maxMoveTime = maxOf(maxMoveTime, side.maxMoveTime)
+            if (!side.isRegular)
+                irregular.merge(side.score.cause ?: ScoreCause.UNKNOWN, 1, Int::plus)
+        }
+    }
+
+    val games = mutableListOf<ArenaGame>()
+    val first = Totals()
+    val second = Totals()
+
+    /** Share of the points of the first contestant, counting a draw as half a win. */
+    val score: Double
+        get() = if (games.isEmpty()) 0.0 else (first.wins + first.draws / 2.0) / games.size
+
+    fun add(game: ArenaGame) {
+        games.add(game)
+        first.add(game.first)
+        second.add(game.second)
+    }
+
+    override fun toString() = buildString {
+        appendLine("Arena: $firstName vs $secondName, ${games.size} games, score %.1f%%".format(score * 100))
+        for ((name, totals) in listOf(firstName to first, secondName to second)) {
+            appendLine("%-16s %5d wins %5d draws %5d losses %6.1f points/game %8.2f ms/move (max %.0f ms)%s".format(
+                    name, totals.wins, totals.draws, totals.losses,
+                    if (games.isEmpty()) 0.0 else totals.points.toDouble() / games.size,
+                    totals.averageMoveMillis, totals.maxMoveMillis,
+                    if (totals.irregular.isEmpty()) "" else " irregular: ${totals.irregular}"))
+        }
+    }.trimEnd()
+}
@@ -3,18 +3,38 @@ package sc.plugin2021
 import com.thoughtworks.xstream.annotations.XStreamAlias
 import com.thoughtworks.xstream.annotations.XStreamConverter
 import sc.api.plugins.IBoard
+import sc.plugin2021.util.BitBoard
 import sc.plugin2021.util.Constants
+import sc.plugin2021.util.PlacementTable
+import sc.plugin2021.util.Zobrist
 import sc.plugin2021.xstream.BoardConverter
 
-/** Das Spielfeld besteht aus 20x20 Feldern, die jeweils von einer Spielerfarbe belegt sein können. */
+/**
+ * Das Spielfeld besteht aus 20x20 Feldern, die jeweils von einer Spielerfarbe belegt sein können.
+ *
+ * Intern wird für jede [Color] eine Bitmaske über alle Felder gehalten (siehe [BitBoard]),
+ * sodass Vergleiche und Kopien nur wenige Longs betreffen.
+ */
 @XStreamAlias(value = "board")
 @XStreamConverter(value = BoardConverter::class)
-class Board(
-        private val gameField: Array<Array<FieldContent>> =
-                Array(Constants.BOARD_SIZE) { Array(Constants.BOARD_SIZE) { FieldContent.EMPTY } },
+class Board private constructor(
+        /** Die Bitmasken aller Farben hintereinander, in der Reihenfolge von [Color]. */
+        private val masks: LongArray
 ): IBoard {
     
-    constructor(other: Board) : this(Array(other.gameField.size) { other.gameField[it].clone() })
+    constructor(): this(LongArray(Constants.COLORS * BitBoard.WORDS))
+    
+    constructor(other: Board): this(other.masks.clone()) {
+        version = other.version
+        zobristKey = other.zobristKey
+    }
+    
+    /** Erstellt ein Spielfeld aus einem Array von Zeilen, also `gameField[y][x]`. */
+    constructor(gameField: Array<Array<FieldContent>>): this() {
+        gameField.forEachIndexed { y, row ->
+            row.forEachIndexed { x, content -> set(x, y, content) }
+        }
+    }
     
     constructor(vararg fields: Field) : this() {
         fields.forEach {
@@ -22,15 +42,21 @@ class Board(
         }
     }
     
+    /** Zählt jede Veränderung des Spielfelds, damit davon abgeleitete Daten ihre Aktualität prüfen können. */
+    internal var version = 0
+        private set
+    
+    /** Das XOR der [Zobrist]-Schlüssel aller belegten Felder, wird bei jeder Änderung mitgeführt. */
+    internal var zobristKey = 0L
+        private set
+    
     /** Prüft, ob alle Felder leer sind. */
     fun isEmpty() =
-            gameField.all { row ->
-                row.all { it == FieldContent.EMPTY }
-            }
+            masks.all { it == 0L }
     
     /** Prüft, ob auf dieser [position] bereits eine Spielerfarbe liegt. */
     fun isObstructed(position: Coordinates): Boolean =
-            this[position].content != FieldContent.EMPTY
+            getContent(position.x, position.y) != FieldContent.EMPTY
     
     /**
      * Gibt das Feld an den gegebenen Koordinaten zurück.
@@ -41,14 +67,39 @@ class Board(
     
     /** Gibt das Feld an den gegebenen Koordinaten zurück. */
     operator fun get(x: Int, y: Int) =
-            Field(Coordinates(x, y), gameField[y][x])
+            Field(Coordinates.of(x, y), getContent(x, y))
     /** Gibt das Feld an den gegebenen Koordinaten zurück. */
     operator fun get(position: Coordinates) =
             get(position.x, position.y)
     
+    /**
+     * Gibt die Farbe des Feldes an den gegebenen Koordinaten zurück, ohne ein [Field] zu erzeugen.
+     * @throws ArrayIndexOutOfBoundsException wenn die Koordinaten außerhalb des Spielfelds liegen
+     */
+    fun getContent(x: Int, y: Int): FieldContent {
+        val index = checkedIndex(x, y)
+        for (color in Color.values())
+            if (BitBoard.isSet(masks, index, color.ordinal * BitBoard.WORDS))
+                return +color
+        return FieldContent.EMPTY
+    }
+    
     /** Ändert die Farbenbelegung des Feldes. */
     operator fun set(x: Int, y: Int, content: FieldContent) {
-        gameField[y][x] = content
+        val index = checkedIndex(x, y)
+        val word = BitBoard.word(index)
+        val bit = BitBoard.bit(index)
+        for (color in Color.values()) {
+            if (masks[color.ordinal * BitBoard.WORDS + word] and bit != 0L)
+                zobristKey = zobristKey xor Zobrist.field(color, index)
+            masks[color.ordinal * BitBoard.WORDS + word] = masks[color.ordinal * BitBoard.WORDS + word] and bit.inv()
+        }
+        val color = +content
+        if (color != null) {
+            masks[color.ordinal * BitBoard.WORDS + word] = masks[color.ordinal * BitBoard.WORDS + word] or bit
+            zobristKey = zobristKey xor Zobrist.field(color, index)
+        }
+        version++
     }
     
     /** Ändert die Farbe des Feldes. */
@@ -58,28 +109,81 @@ class Board(
     /** Vergleicht zwei Spielfelder und gibt eine Liste aller Felder zurück, die sich unterscheiden. */
     fun compare(other: Board): Set<Field> {
         val changedFields = mutableSetOf<Field>()
-        for (y in 0 until Constants.BOARD_SIZE) {
-            for (x in 0 until Constants.BOARD_SIZE) {
-                if (gameField[y][x] != other.gameField[y][x]) {
-                    changedFields += Field(Coordinates(x, y), other.gameField[y][x])
-                }
+        for (word in 0 until BitBoard.WORDS) {
+            var changed = 0L
+            for (color in 0 until Constants.COLORS)
+                changed = changed or (masks[color * BitBoard.WORDS + word] xor other.masks[color * BitBoard.WORDS + word])
+            while (changed != 0L) {
+                val index = word * Long.SIZE_BITS + changed.countTrailingZeroBits()
+                val x = index % Constants.BOARD_SIZE
+                val y = index / Constants.BOARD_SIZE
+                changedFields += Field(Coordinates.of(x, y), other.getContent(x, y))
+                changed = changed and (changed - 1)
             }
         }
         return changedFields
     }
     
     override fun toString() =
-            gameField.joinToString(separator = "\n") { row ->
-                row.joinToString(separator = " ") { it.letter.toString() }
+            (0 until Constants.BOARD_SIZE).joinToString(separator = "\n") { y ->
+                (0 until Constants.BOARD_SIZE).joinToString(separator = " ") { x -> getContent(x, y).letter.toString() }
             }
     
     override fun clone() = Board(this)
     
     override fun equals(other: Any?) =
-            other is Board && gameField.contentDeepEquals(other.gameField)
+            other is Board && masks.contentEquals(other.masks)
     
     override fun hashCode() =
-            gameField.contentDeepHashCode()
+            masks.contentHashCode()
+    
+    /** Belegt alle Felder der Platzierung (siehe [PlacementTable]) mit der gegebenen Farbe. */
+    internal fun place(color: Color, placement: Int) {
+        val offset = color.ordinal * BitBoard.WORDS + PlacementTable.firstWord(placement)
+        for (word in 0 until PlacementTable.WINDOW)
+            masks[offset + word] = masks[offset + word] or PlacementTable.occupied(placement, word)
+        toggleKey(color, placement)
+        version++
+    }
+
+    /** Leert alle Felder der Platzierung (siehe [PlacementTable]) wieder, die zuvor mit [place] belegt wurden. */
+    internal fun remove(color: Color, placement: Int) {
+        val offset = color.ordinal * BitBoard.WORDS + PlacementTable.firstWord(placement)
+        for (word in 0 until PlacementTable.WINDOW)
+            masks[offset + word] = masks[offset + word] and PlacementTable.occupied(placement, word).inv()
+        toggleKey(color, placement)
+        version++
+    }
+    
+    /** Wendet die [Zobrist]-Schlüssel aller Felder der Platzierung in der gegebenen Farbe auf [zobristKey] an. */
+    private fun toggleKey(color: Color, placement: Int) {
+        val first = PlacementTable.firstWord(placement)
+        for (word in 0 until PlacementTable.WINDOW) {
+            var occupied = PlacementTable.occupied(placement, word)
+            while (occupied != 0L) {
+                zobristKey = zobristKey xor Zobrist.field(color, (first + word) * Long.SIZE_BITS + occupied.countTrailingZeroBits())
+                occupied = occupied and (occupied - 1)
+            }
+        }
+    }
+
+    /** @return das Long mit Index [word] der Bitmaske von [color]. */
+    internal fun getMask(color: Color, word: Int): Long =
+            masks[color.ordinal * BitBoard.WORDS + word]
+    
+    /** @return das Long mit Index [word] der Bitmaske aller belegten Felder. */
+    internal fun getOccupied(word: Int): Long {
+        var occupied = 0L
+        for (color in 0 until Constants.COLORS)
+            occupied = occupied or masks[color * BitBoard.WORDS + word]
+        return occupied
+    }
+    
+    private fun checkedIndex(x: Int, y: Int): Int {
+        if (x < 0 || x >= Constants.BOARD_SIZE || y < 0 || y >= Constants.BOARD_SIZE)
+            throw ArrayIndexOutOfBoundsException("[$x, $y] is not on the board")
+        return BitBoard.index(x, y)
+    }
     
     companion object {
         /** @return ob die gegebene Position innerhalb des Spielfelds liegt. */
@@ -98,18 +202,18 @@ enum class Corner(val position: Coordinates) {
     },
     
     /** Die rechte obere Ecke (19, 0). */
-    UPPER_RIGHT(Coordinates(Constants.BOARD_SIZE - 1, 0)) {
-        override fun align(area: Vector): Coordinates = Coordinates(position.x - area.dx, position.y)
+    UPPER_RIGHT(Coordinates.of(Constants.BOARD_SIZE - 1, 0)) {
+        override fun align(area: Vector): Coordinates = Coordinates.of(position.x - area.dx, position.y)
     },
     
     /** Die rechte untere Ecke (19, 19). */
-    LOWER_RIGHT(Coordinates(Constants.BOARD_SIZE - 1, Constants.BOARD_SIZE - 1)) {
+    LOWER_RIGHT(Coordinates.of(Constants.BOARD_SIZE - 1, Constants.BOARD_SIZE - 1)) {
         override fun align(area: Vector): Coordinates = position - area
     },
     
     /** Die linke untere Ecke (0, 19). */
-    LOWER_LEFT(Coordinates(0, Constants.BOARD_SIZE - 1)) {
-        override fun align(area: Vector): Coordinates = Coordinates(position.x, position.y - area.dy)
+    LOWER_LEFT(Coordinates.of(0, Constants.BOARD_SIZE - 1)) {
+        override fun align(area: Vector): Coordinates = Coordinates.of(position.x, position.y - area.dy)
     };
     
     /** Berechne die Koordinaten, die ein Stein haben muss, um in der entsprechenden Ecke platziert zu werden. */
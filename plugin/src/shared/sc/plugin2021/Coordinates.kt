@@ -2,9 +2,14 @@ package sc.plugin2021
 
 import com.thoughtworks.xstream.annotations.XStreamAlias
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute
+import sc.plugin2021.util.Constants
+import java.util.Collections
 import kotlin.math.min
 
-/** Eine 2D Koordinate der Form (x, y). */
+/**
+ * Eine 2D Koordinate der Form (x, y).
+ * Für Koordinaten auf dem Spielfeld sollte [Coordinates.of] genutzt werden, das keine neuen Objekte erzeugt.
+ */
 @XStreamAlias(value = "coordinates")
 data class Coordinates(
         @XStreamAsAttribute val x: Int,
@@ -14,7 +19,7 @@ data class Coordinates(
 
     /** Addiere den [Vector] auf die [Coordinates] auf. */
     operator fun plus(vector: Vector): Coordinates {
-        return Coordinates(x + vector.dx, y + vector.dy)
+        return of(x + vector.dx, y + vector.dy)
     }
     /** Berechne die Distanz zweier Koordinaten, als [Vector] */
     operator fun minus(other: Coordinates): Vector {
@@ -22,22 +27,46 @@ data class Coordinates(
     }
     /** Ziehe die Distanz (als [Vector]) von der Koordinate ab. */
     operator fun minus(other: Vector): Coordinates {
-        return Coordinates(x - other.dx, y - other.dy)
+        return of(x - other.dx, y - other.dy)
     }
     /** Wandelt die [Coordinates] in einen entsprechenden [Vector]. */
     operator fun unaryPlus(): Vector = Vector(x, y)
 
-    /** Gibt ein Set der vier Ecken dieser Koordinaten zurück. */
+    /** Gibt ein unveränderliches Set der vier Ecken dieser Koordinaten zurück. */
     val corners: Set<Coordinates>
-        get() = Vector.diagonals.mapTo(HashSet()) { this + it }
+        get() = if (onBoard(x, y)) cachedCorners[index(x, y)] else Vector.diagonals.mapTo(HashSet()) { this + it }
 
-    /** Gibt ein Set der vier benachbarten Felder dieser Koordinaten zurück. */
+    /** Gibt ein unveränderliches Set der vier benachbarten Felder dieser Koordinaten zurück. */
     val neighbors: Set<Coordinates>
-        get() = Vector.cardinals.mapTo(HashSet()) { this + it }
+        get() = if (onBoard(x, y)) cachedNeighbors[index(x, y)] else Vector.cardinals.mapTo(HashSet()) { this + it }
 
     companion object {
+        // Field initializers run in declaration order, so the cache has to come before everything that uses it
+        private val cache = Array(Constants.BOARD_SIZE * Constants.BOARD_SIZE) {
+            Coordinates(it % Constants.BOARD_SIZE, it / Constants.BOARD_SIZE)
+        }
+        private val cachedCorners = Array(cache.size) { cache[it].translated(Vector.diagonals) }
+        private val cachedNeighbors = Array(cache.size) { cache[it].translated(Vector.cardinals) }
+
         /** Der Ursprung des Koordinatensystems (0, 0). */
-        val origin = Coordinates(0, 0)
+        val origin = of(0, 0)
+
+        /**
+         * Gibt die Koordinaten (x, y) zurück.
+         * Liegen sie auf dem Spielfeld, wird immer dieselbe Instanz geliefert, sonst eine neue.
+         */
+        @JvmStatic
+        fun of(x: Int, y: Int): Coordinates =
+                if (onBoard(x, y)) cache[index(x, y)] else Coordinates(x, y)
+
+        private fun Coordinates.translated(vectors: Collection<Vector>): Set<Coordinates> =
+                Collections.unmodifiableSet(vectors.mapTo(LinkedHashSet()) { this + it })
+
+        private fun onBoard(x: Int, y: Int) =
+                x >= 0 && y >= 0 && x < Constants.BOARD_SIZE && y < Constants.BOARD_SIZE
+
+        private fun index(x: Int, y: Int) =
+                y * Constants.BOARD_SIZE + x
     }
 }
 
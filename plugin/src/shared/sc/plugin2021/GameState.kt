@@ -2,12 +2,19 @@ package sc.plugin2021
 
 import com.thoughtworks.xstream.annotations.XStreamAlias
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute
+import com.thoughtworks.xstream.annotations.XStreamOmitField
 import org.slf4j.LoggerFactory
 import sc.api.plugins.ITeam
 import sc.api.plugins.TwoPlayerGameState
 import sc.framework.plugins.Player
+import sc.plugin2021.util.BitBoard
 import sc.plugin2021.util.Constants
 import sc.plugin2021.util.GameRuleLogic
+import sc.plugin2021.util.PackedMove
+import sc.plugin2021.util.PlacementTable
+import sc.plugin2021.util.UndoStack
+import sc.plugin2021.util.Zobrist
+import kotlin.random.Random
 
 /**
  * Der aktuelle Spielstand.
@@ -31,23 +38,38 @@ class GameState @JvmOverloads constructor(
         /** Speichert für jede Farbe, die alle Steine gelegt hat, ob das Monomino zuletzt gelegt wurde. */
         @XStreamAsAttribute
         val lastMoveMono: HashMap<Color, Boolean> = HashMap(),
-        blueShapes: LinkedHashSet<PieceShape> = PieceShape.values().toLinkedHashSet(),
-        yellowShapes: LinkedHashSet<PieceShape> = PieceShape.values().toLinkedHashSet(),
-        redShapes: LinkedHashSet<PieceShape> = PieceShape.values().toLinkedHashSet(),
-        greenShapes: LinkedHashSet<PieceShape> = PieceShape.values().toLinkedHashSet(),
+        blueShapes: Collection<PieceShape> = PieceShapeSet(PieceShapeSet.ALL),
+        yellowShapes: Collection<PieceShape> = PieceShapeSet(PieceShapeSet.ALL),
+        redShapes: Collection<PieceShape> = PieceShapeSet(PieceShapeSet.ALL),
+        greenShapes: Collection<PieceShape> = PieceShapeSet(PieceShapeSet.ALL),
         validColors: ArrayList<Color> = Color.values().toCollection(ArrayList(Color.values().size))
 ): TwoPlayerGameState<Player>(Team.ONE) {
     
     companion object {
         val logger = LoggerFactory.getLogger(GameState::class.java)
+        
+        private val colors = Color.values()
     }
     
-    constructor(other: GameState): this(other.first, other.second, other.startPiece, other.board.clone(), other.turn, other.lastMove, HashMap(other.lastMoveMono), LinkedHashSet(other.blueShapes), LinkedHashSet(other.yellowShapes), LinkedHashSet(other.redShapes), LinkedHashSet(other.greenShapes), ArrayList(other.validColors))
+    /**
+     * Erzeugt einen neuen Spielstand, dessen Startstein sich aus [seed] ergibt,
+     * damit Spiele etwa für Benchmarks reproduzierbar sind.
+     */
+    constructor(seed: Long): this(startPiece = GameRuleLogic.getRandomPentomino(Random(seed)))
     
-    private val blueShapes = blueShapes
-    private val yellowShapes = yellowShapes
-    private val redShapes = redShapes
-    private val greenShapes = greenShapes
+    constructor(other: GameState): this(other.first, other.second, other.startPiece, other.board.clone(), other.turn, other.lastMove, HashMap(other.lastMoveMono), other.blueShapes, other.yellowShapes, other.redShapes, other.greenShapes, ArrayList(other.validColors)) {
+        if (other.anchorsVersion == other.board.version) {
+            anchors = other.anchors?.clone()
+            forbidden = other.forbidden?.clone()
+            anchorsVersion = board.version
+        }
+    }
+    
+    // The undeployed shapes of each color, stored as bitmasks
+    private val blueShapes = PieceShapeSet(blueShapes)
+    private val yellowShapes = PieceShapeSet(yellowShapes)
+    private val redShapes = PieceShapeSet(redShapes)
+    private val greenShapes = PieceShapeSet(greenShapes)
     
     private fun mutableUndeployedPieceShapes(color: Color = currentColor) = when (color) {
         Color.BLUE -> blueShapes
@@ -56,13 +78,21 @@ class GameState @JvmOverloads constructor(
         Color.GREEN -> greenShapes
     }
     
-    /** @return Liste der noch nicht von [Color] gesetzten Steine. */
+    /** @return Liste der noch nicht von [Color] gesetzten Steine, in der Reihenfolge von [PieceShape]. */
     fun undeployedPieceShapes(color: Color = currentColor): Collection<PieceShape> =
             mutableUndeployedPieceShapes(color)
     
+    /** @return die noch nicht von [Color] gesetzten Steine als Bitmaske, siehe [PieceShapeSet.mask]. */
+    @JvmOverloads
+    fun undeployedPieceShapeMask(color: Color = currentColor): Int =
+            mutableUndeployedPieceShapes(color).mask
+    
     fun removeUndeployedPiece(piece: Piece) =
             mutableUndeployedPieceShapes(piece.color).remove(piece.kind)
     
+    internal fun removeUndeployedShape(color: Color, shape: PieceShape) =
+            mutableUndeployedPieceShapes(color).remove(shape)
+    
     fun roundFromTurn(turn: Int) = 1 + turn / Constants.COLORS
     
     /** Die Anzahl an bereits getätigten Zügen. */
@@ -93,7 +123,7 @@ class GameState @JvmOverloads constructor(
     
     /** Die Farbe, die am Zug ist. */
     val currentColor: Color
-        get() = orderedColors[turn % Constants.COLORS]
+        get() = colors[turn % Constants.COLORS]
     
     /** Liste der Farben, die noch im Spiel sind. */
     private val validColors = validColors
@@ -121,6 +151,153 @@ class GameState @JvmOverloads constructor(
         return true
     }
 
+    /**
+     * Ein 64-Bit Zobrist-Schlüssel des Spielstands (siehe [Zobrist]) für Transpositionstabellen.
+     * Er umfasst die Belegung des Spielfelds, die noch nicht gesetzten Steine jeder Farbe,
+     * die Farbe am Zug, die noch im Spiel befindlichen Farben sowie [lastMoveMono].
+     * Der Anteil des Spielfelds wird bei jedem Zug und dessen Rücknahme inkrementell mitgeführt,
+     * der der Steine über Tabellen aus deren Bitmasken gelesen.
+     * Die Berechnung legt keine Objekte an, damit Suchverfahren ihn in jedem Knoten abfragen können.
+     */
+    val zobristKey: Long
+        get() {
+            var key = board.zobristKey xor Zobrist.currentColor(currentColor)
+            for (color in colors) {
+                key = key xor Zobrist.shapes(color, mutableUndeployedPieceShapes(color).mask)
+                val mono = lastMoveMono[color]
+                if (mono != null)
+                    key = key xor Zobrist.lastMoveMono(color, mono)
+            }
+            for (index in validColors.indices)
+                key = key xor Zobrist.validColor(validColors[index])
+            return key
+        }
+
+    // The following fields are derived from the board and are kept up to date by GameRuleLogic.performMove.
+    // They are recalculated whenever the board was modified otherwise, e.g. after deserialization.
+    /** Für jede Farbe die Bitmaske der freien Felder, die diagonal, aber nicht kardinal an sie angrenzen. */
+    @XStreamOmitField
+    private var anchors: LongArray? = null
+    /** Für jede Farbe die Bitmaske der Felder, die kardinal an sie angrenzen und ihr daher verwehrt sind. */
+    @XStreamOmitField
+    private var forbidden: LongArray? = null
+    /** Die [Board.version], für die [anchors] und [forbidden] berechnet wurden. */
+    @XStreamOmitField
+    private var anchorsVersion = -1
+    
+    /** Berechnet [anchors] und [forbidden] neu, falls das Spielfeld anderweitig verändert wurde. */
+    private fun ensureAnchors() {
+        if (anchors != null && anchorsVersion == board.version)
+            return
+        val anchors = LongArray(Constants.COLORS * BitBoard.WORDS)
+        val forbidden = LongArray(Constants.COLORS * BitBoard.WORDS)
+        Color.values().forEach {
+            GameRuleLogic.calculateAnchors(board, it, anchors, forbidden, it.ordinal * BitBoard.WORDS)
+        }
+        this.anchors = anchors
+        this.forbidden = forbidden
+        anchorsVersion = board.version
+    }
+    
+    /** @return die Ankermasken aller Farben hintereinander, jeweils [BitBoard.WORDS] Longs in der Reihenfolge von [Color]. */
+    internal fun anchorWords(): LongArray {
+        ensureAnchors()
+        return anchors!!
+    }
+    
+    /** @return das Long mit Index [word] der Bitmaske der Felder, an die [color] über eine Ecke anlegen kann. */
+    internal fun getAnchors(color: Color, word: Int): Long {
+        ensureAnchors()
+        return anchors!![color.ordinal * BitBoard.WORDS + word]
+    }
+    
+    /** @return das Long mit Index [word] der Bitmaske der Felder, die kardinal an [color] angrenzen. */
+    internal fun getForbidden(color: Color, word: Int): Long {
+        ensureAnchors()
+        return forbidden!![color.ordinal * BitBoard.WORDS + word]
+    }
+    
+    /**
+     * Legt die Platzierung (siehe [PlacementTable]) in der gegebenen Farbe auf das Spielfeld
+     * und aktualisiert die Ankerfelder aller Farben, ohne das Spielfeld erneut zu durchsuchen.
+     */
+    internal fun placePiece(color: Color, placement: Int) {
+        ensureAnchors()
+        val anchors = anchors!!
+        val forbidden = forbidden!!
+        board.place(color, placement)
+        val first = PlacementTable.firstWord(placement)
+        for (word in 0 until PlacementTable.WINDOW) {
+            val occupied = PlacementTable.occupied(placement, word).inv()
+            for (other in 0 until Constants.COLORS)
+                anchors[other * BitBoard.WORDS + first + word] = anchors[other * BitBoard.WORDS + first + word] and occupied
+            val own = color.ordinal * BitBoard.WORDS + first + word
+            forbidden[own] = forbidden[own] or PlacementTable.edges(placement, word)
+            anchors[own] = (anchors[own] or PlacementTable.corners(placement, word)) and
+                    forbidden[own].inv() and board.getOccupied(first + word).inv()
+        }
+        anchorsVersion = board.version
+    }
+
+    /**
+     * Legt auf [stack] alles ab, was [undo] benötigt, um den folgenden [move] wieder zurückzunehmen.
+     * Ist [move] null, wird stattdessen der als [PackedMove] kodierte Zug [packed] ausgeführt.
+     */
+    internal fun saveUndo(stack: UndoStack, move: Move?, packed: Int = 0) {
+        ensureAnchors()
+        val index = stack.push()
+        val color = move?.color ?: PackedMove.color(packed)
+        stack.moves[index] = move
+        stack.packedMoves[index] = packed
+        stack.lastMoves[index] = lastMove
+        stack.turns[index] = turn
+        stack.validColors[index] = validColors.fold(0) { mask, validColor -> mask or (1 shl validColor.ordinal) }
+        stack.lastMoveMonos[index] = when (lastMoveMono[color]) {
+            null -> 0
+            false -> 1
+            true -> 2
+        }
+        anchors!!.copyInto(stack.anchors, index * UndoStack.ANCHOR_WORDS)
+        forbidden!!.copyInto(stack.anchors, index * UndoStack.ANCHOR_WORDS + Constants.COLORS * BitBoard.WORDS)
+    }
+    
+    /**
+     * Nimmt den obersten Zug auf [stack] zurück.
+     * Dabei werden auch Farben wiederhergestellt, die seitdem aus dem Spiel entfernt wurden.
+     */
+    internal fun undo(stack: UndoStack) {
+        val index = stack.peek()
+        val move = stack.moves[index]
+        val packed = stack.packedMoves[index]
+        val color = move?.color ?: PackedMove.color(packed)
+        if (move is SetMove) {
+            board.remove(color, PlacementTable.placement(move.piece))
+            mutableUndeployedPieceShapes(color).add(move.piece.kind)
+        } else if (move == null && !PackedMove.isSkip(packed)) {
+            board.remove(color, PackedMove.placement(packed))
+            mutableUndeployedPieceShapes(color).add(PackedMove.shape(packed))
+        }
+        when (stack.lastMoveMonos[index]) {
+            0 -> lastMoveMono.remove(color)
+            1 -> lastMoveMono[color] = false
+            2 -> lastMoveMono[color] = true
+        }
+        val colors = stack.validColors[index]
+        if (validColors.size != Integer.bitCount(colors)) {
+            validColors.clear()
+            Color.values().filterTo(validColors) { colors and (1 shl it.ordinal) != 0 }
+        }
+        turn = stack.turns[index]
+        lastMove = stack.lastMoves[index]
+        
+        val anchors = anchors ?: LongArray(Constants.COLORS * BitBoard.WORDS).also { anchors = it }
+        val forbidden = forbidden ?: LongArray(Constants.COLORS * BitBoard.WORDS).also { forbidden = it }
+        stack.anchors.copyInto(anchors, 0, index * UndoStack.ANCHOR_WORDS, index * UndoStack.ANCHOR_WORDS + anchors.size)
+        stack.anchors.copyInto(forbidden, 0, index * UndoStack.ANCHOR_WORDS + anchors.size, (index + 1) * UndoStack.ANCHOR_WORDS)
+        anchorsVersion = board.version
+        stack.pop()
+    }
+
     fun addPlayer(player: Player) {
         when (player.color) {
             Team.ONE -> first = player
@@ -133,16 +310,17 @@ class GameState @JvmOverloads constructor(
             (team as Team).colors.map { getPointsForColor(it) }.sum()
 
     private fun getPointsForColor(color: Color): Int {
-        val pieces = undeployedPieceShapes(color)
         val lastMono = lastMoveMono[color] ?: false
-        return GameRuleLogic.getPointsFromUndeployed(pieces, lastMono)
+        return GameRuleLogic.getPointsFromUndeployed(undeployedPieceShapeMask(color), lastMono)
     }
 
     /** Entferne die Farbe, die momentan am Zug ist.
      * @return ob noch Farben im Spiel sind */
     internal fun removeActiveColor(): Boolean {
         validColors.remove(currentColor)
-        logger.info("Removed ${currentColor.name} from the game - remaining: [${validColors.joinToString { it.name }}]")
+        // Searches remove colors in every simulated game, so this is not logged by default
+        if (logger.isDebugEnabled)
+            logger.debug("Removed ${currentColor.name} from the game - remaining: [${validColors.joinToString { it.name }}]")
         return advance()
     }
 
@@ -3,6 +3,7 @@ package sc.plugin2021
 import com.thoughtworks.xstream.annotations.XStreamAlias
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute
 import com.thoughtworks.xstream.annotations.XStreamOmitField
+import sc.plugin2021.util.PlacementTable
 
 /** Ein Spielstein mit Farbe, position und entsprechend transformierter Form. */
 @XStreamAlias(value = "piece")
@@ -37,6 +38,10 @@ data class Piece(
     private constructor(color: Color, kind: PieceShape, transformation: Pair<Rotation, Boolean>, position: Coordinates):
             this(color, kind, transformation.first, transformation.second, position)
     
+    /** Der Index der Variante von [kind], die [rotation] und [isFlipped] ergeben, siehe [PlacementTable]. */
+    private val variant: Int
+        get() = PlacementTable.variantIndex(kind, rotation, isFlipped)
+    
     // The following two fields have their lazy calculation implemented by hand because XStream doesn't initialize objects normally
     @XStreamOmitField
     private lateinit var _shape: Set<Coordinates>
@@ -44,7 +49,7 @@ data class Piece(
     val shape: Set<Coordinates>
         get() {
             if (!::_shape.isInitialized)
-                _shape = kind.transform(rotation, isFlipped)
+                _shape = PlacementTable.variant(kind, variant)
             return _shape
         }
     
@@ -54,7 +59,7 @@ data class Piece(
     val coordinates: Set<Coordinates>
         get() {
             if (!::_coordinates.isInitialized)
-                _coordinates = shape.mapTo(HashSet()) { position + +it }
+                _coordinates = PlacementTable.coordinates(kind, variant, position.x, position.y)
             return _coordinates
         }
     
@@ -81,7 +86,7 @@ data class Piece(
     
     override fun hashCode(): Int {
         var result = color.hashCode()
-        result = 31 * result + coordinates.hashCode()
+        result = 31 * result + PlacementTable.hashCode(kind, variant, position.x, position.y)
         return result
     }
 }
\ No newline at end of file
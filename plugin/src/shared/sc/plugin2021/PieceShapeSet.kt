@@ -0,0 +1,84 @@
+package sc.plugin2021
+
+import com.thoughtworks.xstream.annotations.XStreamConverter
+import sc.plugin2021.util.Constants
+import sc.plugin2021.xstream.PieceShapeSetConverter
+
+/**
+ * Eine Menge von [PieceShape]s, die als Bitmaske über deren Ordinalzahlen gespeichert wird.
+ * Iteriert wird immer in der Reihenfolge von [PieceShape].
+ */
+@XStreamConverter(value = PieceShapeSetConverter::class)
+class PieceShapeSet(mask: Int = 0): AbstractMutableSet<PieceShape>() {
+
+    constructor(shapes: Collection<PieceShape>): this(
+            if (shapes is PieceShapeSet) shapes.mask
+            else shapes.fold(0) { mask, shape -> mask or bit(shape) })
+
+    /** Die Bitmaske der enthaltenen Formen, Bit `i` steht für die Form mit Ordinalzahl `i`. */
+    var mask: Int = mask
+        internal set
+
+    override val size: Int
+        get() = Integer.bitCount(mask)
+
+    override fun isEmpty() = mask == 0
+
+    override fun contains(element: PieceShape) =
+            mask and bit(element) != 0
+
+    override fun add(element: PieceShape): Boolean {
+        val previous = mask
+        mask = mask or bit(element)
+        return mask != previous
+    }
+
+    override fun remove(element: PieceShape): Boolean {
+        val previous = mask
+        mask = mask and bit(element).inv()
+        return mask != previous
+    }
+
+    override fun clear() {
+        mask = 0
+    }
+
+    override fun iterator(): MutableIterator<PieceShape> = object: MutableIterator<PieceShape> {
+        private var remaining = mask
+        private var last = -1
+
+        override fun hasNext() = remaining != 0
+
+        override fun next(): PieceShape {
+            if (remaining == 0)
+                throw NoSuchElementException()
+            last = remaining.countTrailingZeroBits()
+            remaining = remaining and (remaining - 1)
+            return shapes[last]
+        }
+
+        override fun remove() {
+            check(last >= 0) { "next() wurde nicht aufgerufen" }
+            mask = mask and (1 shl last).inv()
+            last = -1
+        }
+    }
+
+    override fun equals(other: Any?): Boolean =
+            if (other is PieceShapeSet) mask == other.mask
+            else super.equals(other)
+
+    override fun hashCode(): Int =
+            super.hashCode()
+
+    companion object {
+        private val shapes = PieceShape.values()
+
+        /** Die Bitmaske, die alle Formen enthält. */
+        const val ALL = (1 shl Constants.TOTAL_PIECE_SHAPES) - 1
+
+        /** @return die Bitmaske, die nur die gegebene Form enthält. */
+        @JvmStatic
+        fun bit(shape: PieceShape) = 1 shl shape.ordinal
+    }
+}
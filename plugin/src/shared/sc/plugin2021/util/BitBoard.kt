@@ -0,0 +1,32 @@
+package sc.plugin2021.util
+
+/**
+ * Hilfsfunktionen für Bitmasken über das Spielfeld.
+ *
+ * Jedes der 400 Felder entspricht einem Bit, das Feld (x, y) liegt an Index `y * BOARD_SIZE + x`.
+ * Eine Maske besteht aus [WORDS] aufeinanderfolgenden Longs.
+ */
+object BitBoard {
+    /** Anzahl an Feldern auf dem Spielfeld. */
+    const val FIELDS = Constants.BOARD_SIZE * Constants.BOARD_SIZE
+
+    /** Anzahl an Longs, die eine Maske über das ganze Spielfeld belegt. */
+    const val WORDS = (FIELDS + Long.SIZE_BITS - 1) / Long.SIZE_BITS
+
+    /** @return den Bit-Index des Feldes (x, y). */
+    @JvmStatic
+    fun index(x: Int, y: Int) = y * Constants.BOARD_SIZE + x
+
+    /** @return den Index des Longs, in dem das Bit liegt. */
+    @JvmStatic
+    fun word(index: Int) = index ushr 6
+
+    /** @return das Long, in dem nur das Bit gesetzt ist. */
+    @JvmStatic
+    fun bit(index: Int) = 1L shl (index and 63)
+
+    /** @return ob das Bit mit dem gegebenen Index in [mask] ab [offset] gesetzt ist. */
+    @JvmStatic
+    fun isSet(mask: LongArray, index: Int, offset: Int = 0) =
+            mask[offset + word(index)] and bit(index) != 0L
+}
@@ -19,20 +19,20 @@ fun Set<Coordinates>.rotate(rotation: Rotation) =
 fun Set<Coordinates>.flip(shouldFlip: Boolean = true) =
         when (shouldFlip) {
             false -> this
-            true -> map { Coordinates(-it.x, it.y) }.align()
+            true -> map { Coordinates.of(-it.x, it.y) }.align()
         }
 
 /** Drehe die Koordinaten um 180 Grad. */
 fun Collection<Coordinates>.mirror() =
-        mapTo(HashSet()) { Coordinates(-it.x, -it.y) }
+        mapTo(HashSet()) { Coordinates.of(-it.x, -it.y) }
 
 /** Drehe die Koordinaten 90 Grad im Uhrzeigersinn. */
 fun Collection<Coordinates>.turnRight() =
-        mapTo(HashSet()) { Coordinates(-it.y, it.x) }
+        mapTo(HashSet()) { Coordinates.of(-it.y, it.x) }
 
 /** Drehe die Koordinaten 90 Grad gegen den Uhrzeigersinn. */
 fun Collection<Coordinates>.turnLeft() =
-        mapTo(HashSet()) { Coordinates(it.y, -it.x) }
+        mapTo(HashSet()) { Coordinates.of(it.y, -it.x) }
 
 /**
  * Bewege die Koordinaten in die linke obere Ecke (Punkt(0, 0)).
@@ -45,7 +45,7 @@ fun Collection<Coordinates>.align(): Set<Coordinates> {
         minX = min(it.x, minX)
         minY = min(it.y, minY)
     }
-    return mapTo(HashSet()) { Coordinates(it.x - minX, it.y - minY) }
+    return mapTo(HashSet()) { Coordinates.of(it.x - minX, it.y - minY) }
 }
 
 /**
@@ -4,6 +4,7 @@ import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import sc.plugin2021.*
 import sc.shared.InvalidMoveException
+import kotlin.random.Random
 
 /**
  * Eine Sammlung an Funktionen, die die Spielregeln logisch umsetzen.
@@ -17,6 +18,14 @@ object GameRuleLogic {
     
     const val SUM_MAX_SQUARES = 89
     
+    /** Bitmaske der vier Ecken des Spielfelds. */
+    private val boardCorners = LongArray(BitBoard.WORDS).also { mask ->
+        Corner.values().forEach {
+            val index = BitBoard.index(it.position.x, it.position.y)
+            mask[BitBoard.word(index)] = mask[BitBoard.word(index)] or BitBoard.bit(index)
+        }
+    }
+    
     /**
      * Berechne den Punktestand anhand der gegebenen [PieceShape]s.
      * @param undeployed eine Sammlung aller nicht gelegten [PieceShape]s
@@ -25,16 +34,34 @@ object GameRuleLogic {
      * @return die erreichte Punktezahl
      */
     @JvmStatic
-    fun getPointsFromUndeployed(undeployed: Collection<PieceShape>, monoLast: Boolean = false): Int {
+    fun getPointsFromUndeployed(undeployed: Collection<PieceShape>, monoLast: Boolean = false): Int =
+            getPointsFromUndeployed(PieceShapeSet(undeployed).mask, monoLast)
+    
+    /** Für jede Steingröße die Bitmaske der [PieceShape]s dieser Größe. */
+    private val shapesBySize = IntArray(PieceShape.values().maxOf { it.size } + 1) { size ->
+        PieceShape.values().filter { it.size == size }.fold(0) { mask, shape -> mask or PieceShapeSet.bit(shape) }
+    }
+    
+    /**
+     * Berechne den Punktestand anhand der Bitmaske der nicht gelegten [PieceShape]s (siehe [PieceShapeSet.mask]).
+     * @param monoLast ob der letzte gelegte Stein das Monomino war
+     *
+     * @return die erreichte Punktezahl
+     */
+    @JvmStatic
+    fun getPointsFromUndeployed(undeployed: Int, monoLast: Boolean = false): Int {
         // If all pieces were placed:
-        if (undeployed.isEmpty()) {
+        if (undeployed == 0) {
             // Return sum of all squares plus 15 bonus points
             return SUM_MAX_SQUARES + 15 +
             // If the Monomino was the last placed piece, add another 5 points
             if (monoLast) 5 else 0
         }
         // One point per block per piece placed
-        return SUM_MAX_SQUARES - undeployed.sumBy { it.coordinates.size }
+        var points = SUM_MAX_SQUARES
+        for (size in shapesBySize.indices)
+            points -= size * Integer.bitCount(undeployed and shapesBySize[size])
+        return points
     }
     
     /**
@@ -55,6 +82,62 @@ object GameRuleLogic {
         gameState.lastMove = move
     }
     
+    /**
+     * Führe [move] wie [performMove] in [gameState] aus
+     * und lege dabei auf [history] ab, wie er mit [undoMove] zurückgenommen werden kann.
+     * Ist der Zug ungültig, bleiben [gameState] und [history] unverändert.
+     */
+    @JvmStatic
+    fun performMove(gameState: GameState, move: Move, history: UndoStack) {
+        gameState.saveUndo(history, move)
+        try {
+            performMove(gameState, move)
+        } catch (e: InvalidMoveException) {
+            history.pop()
+            throw e
+        }
+    }
+    
+    /**
+     * Führe den als [PackedMove] kodierten Zug aus, ohne ihn zu prüfen und ohne Objekte anzulegen,
+     * etwa für zufällige Simulationen bis zum Spielende.
+     * Der Zug muss aus [collectPossibleMoves] für diesen Spielstand stammen.
+     * Anders als bei [performMove] bleibt [GameState.lastMove] unverändert.
+     */
+    @JvmStatic
+    fun performPackedMove(gameState: GameState, packed: Int) {
+        if (!PackedMove.isSkip(packed)) {
+            val color = PackedMove.color(packed)
+            val shape = PackedMove.shape(packed)
+            gameState.placePiece(color, PackedMove.placement(packed))
+            gameState.removeUndeployedShape(color, shape)
+            if (gameState.undeployedPieceShapeMask(color) == 0)
+                gameState.lastMoveMono[color] = shape == PieceShape.MONO
+        }
+        gameState.advance()
+    }
+    
+    /**
+     * Führe den als [PackedMove] kodierten Zug wie [performPackedMove] aus
+     * und lege dabei auf [history] ab, wie er mit [undoMove] zurückgenommen werden kann.
+     */
+    @JvmStatic
+    fun performPackedMove(gameState: GameState, packed: Int, history: UndoStack) {
+        gameState.saveUndo(history, null, packed)
+        performPackedMove(gameState, packed)
+    }
+    
+    /**
+     * Nimm den zuletzt mit [history] ausgeführten Zug zurück.
+     * Auch die Farben, die seitdem über [removeInvalidColors] entfernt wurden, sind danach wieder im Spiel.
+     *
+     * @throws IllegalStateException wenn [history] leer ist
+     */
+    @JvmStatic
+    fun undoMove(gameState: GameState, history: UndoStack) {
+        gameState.undo(history)
+    }
+    
     /** Prüfe, ob die Farbe des gegebenen [Move]s der aktiven Farbe des [GameState]s entspricht. */
     @JvmStatic
     fun validateMoveColor(gameState: GameState, move: Move) {
@@ -74,16 +157,28 @@ object GameRuleLogic {
         // Check whether the shape is valid
         validateShape(gameState, move.piece.kind, move.color)
         // Check whether the piece can be placed
-        validateSetMove(gameState.board, move)
+        checkSetMove(gameState, move)?.let { throw InvalidMoveException(it, move) }
+    }
+    
+    /**
+     * Prüfe, ob der gegebene [SetMove] gesetzt werden könnte, ohne dabei Exceptions zu werfen.
+     * Die Prüfungen entsprechen denen von [validateSetMove].
+     *
+     * @return die Art der Regelverletzung, oder null wenn der Zug valide ist
+     */
+    @JvmStatic
+    fun checkSetMove(gameState: GameState, move: SetMove): MoveMistake? {
+        if (move.color != gameState.currentColor)
+            return MoveMistake.WRONG_COLOR
+        checkShape(gameState, move.piece.kind, move.color)?.let { return it }
+        checkSetMove(gameState.board, move)?.let { return it }
         
-        if (isFirstMove(gameState)) {
+        return if (isFirstMove(gameState)) {
             // Check if it is placed correctly in a corner
-            if (move.piece.coordinates.none { isOnCorner(it)})
-                throw InvalidMoveException(MoveMistake.NOT_IN_CORNER, move)
+            if (move.piece.coordinates.none { isOnCorner(it) }) MoveMistake.NOT_IN_CORNER else null
         } else {
             // Check if the piece is connected to at least one tile of same color by corner
-            if (move.piece.coordinates.none { cornersOnColor(gameState.board, Field(it, move.color)) })
-                throw InvalidMoveException(MoveMistake.NO_SHARED_CORNER, move)
+            if (move.piece.coordinates.none { cornersOnColor(gameState.board, Field(it, move.color)) }) MoveMistake.NO_SHARED_CORNER else null
         }
     }
 
@@ -93,7 +188,7 @@ object GameRuleLogic {
         if (Constants.VALIDATE_MOVE)
             validateSetMove(gameState, move)
 
-        performSetMove(gameState.board, move)
+        gameState.placePiece(move.color, PlacementTable.placement(move.piece))
         gameState.removeUndeployedPiece(move.piece)
 
         // If it was the last piece for this color, remove it from the turn queue
@@ -112,14 +207,22 @@ object GameRuleLogic {
      */
     @JvmStatic
     fun validateShape(gameState: GameState, shape: PieceShape, color: Color = gameState.currentColor) {
-        if (isFirstMove(gameState)) {
-            if (shape != gameState.startPiece)
-                throw InvalidMoveException(MoveMistake.WRONG_SHAPE)
-        } else {
-            if (!gameState.undeployedPieceShapes(color).contains(shape))
-                throw InvalidMoveException(MoveMistake.DUPLICATE_SHAPE)
-        }
+        checkShape(gameState, shape, color)?.let { throw InvalidMoveException(it) }
     }
+    
+    /**
+     * Prüfe wie [validateShape], ob der gegebene Spielstein gesetzt werden könnte.
+     *
+     * @return die Art der Regelverletzung, oder null wenn der Stein gesetzt werden darf
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun checkShape(gameState: GameState, shape: PieceShape, color: Color = gameState.currentColor): MoveMistake? =
+            if (isFirstMove(gameState)) {
+                if (shape != gameState.startPiece) MoveMistake.WRONG_SHAPE else null
+            } else {
+                if (!gameState.undeployedPieceShapes(color).contains(shape)) MoveMistake.DUPLICATE_SHAPE else null
+            }
 
     /**
      * Prüfe, ob der gegebene [Move] zulässig ist.
@@ -129,13 +232,12 @@ object GameRuleLogic {
      * @return ob der Zug zulässig ist
      */
     @JvmStatic
-    fun isValidSetMove(gameState: GameState, move: SetMove) =
-            try {
-                validateSetMove(gameState, move)
-                true
-            } catch (e: InvalidMoveException) {
-                false
-            }
+    fun isValidSetMove(gameState: GameState, move: SetMove): Boolean {
+        if (move.color != gameState.currentColor || checkShape(gameState, move.piece.kind, move.color) != null)
+            return false
+        val placement = PlacementTable.placement(move.piece)
+        return placement != -1 && canPlace(gameState.board, move.color, placement, isFirstMove(gameState))
+    }
 
     /** Prüfe, ob der gegebene [SetMove] auf dem [Board] platziert werden kann.
     *
@@ -143,29 +245,29 @@ object GameRuleLogic {
     */
     @JvmStatic
     fun validateSetMove(board: Board, move: SetMove) {
+        checkSetMove(board, move)?.let { throw InvalidMoveException(it, move) }
+    }
+    
+    /**
+     * Prüfe wie [validateSetMove], ob der gegebene [SetMove] auf dem [Board] platziert werden kann.
+     *
+     * @return die Art der Regelverletzung, oder null wenn der Stein dort platziert werden kann
+     */
+    @JvmStatic
+    fun checkSetMove(board: Board, move: SetMove): MoveMistake? {
         move.piece.coordinates.forEach {
-            try {
-                board[it]
-            } catch (e: ArrayIndexOutOfBoundsException) {
-                throw InvalidMoveException(MoveMistake.OUT_OF_BOUNDS, move)
-            }
+            if (!Board.contains(it))
+                return MoveMistake.OUT_OF_BOUNDS
             // Checks if a part of the piece is obstructed
             if (board.isObstructed(it))
-                throw InvalidMoveException(MoveMistake.OBSTRUCTED, move)
+                return MoveMistake.OBSTRUCTED
             // Checks if a part of the piece would border on another piece of same color
             if (bordersOnColor(board, Field(it, move.color)))
-                throw InvalidMoveException(MoveMistake.TOUCHES_SAME_COLOR, move)
+                return MoveMistake.TOUCHES_SAME_COLOR
         }
+        return null
     }
     
-    /** Place a Piece on the given [board] according to [move]. */
-    @JvmStatic
-    private fun performSetMove(board: Board, move: SetMove) {
-        move.piece.coordinates.forEach {
-            board[it] = +move.color
-        }
-    }
-
     /**
      * Prüfe, ob die aktuelle Farbe den Zug überspringen kann.
      *
@@ -186,17 +288,15 @@ object GameRuleLogic {
     /** Prüfe, ob das gegebene [Field] bereits an eins mit gleicher Farbe angrenzt. */
     @JvmStatic
     fun bordersOnColor(board: Board, field: Field): Boolean =
-            field.coordinates.neighbors.any {
-                try { board[it].content == field.content && !field.isEmpty }
-                catch (e: ArrayIndexOutOfBoundsException) { false }
+            !field.isEmpty && field.coordinates.neighbors.any {
+                Board.contains(it) && board.getContent(it.x, it.y) == field.content
             }
     
     /** Prüfe, ob das gegebene Feld an die Ecke eines Feldes gleicher Farbe angrenzt. */
     @JvmStatic
     fun cornersOnColor(board: Board, field: Field): Boolean =
-            field.coordinates.corners.any {
-                try { board[it].content == field.content && !field.isEmpty }
-                catch (e: ArrayIndexOutOfBoundsException) { false }
+            !field.isEmpty && field.coordinates.corners.any {
+                Board.contains(it) && board.getContent(it.x, it.y) == field.content
             }
     
     /** Prüfe, ob die gegebene Position eine Ecke des Spielfelds ist. */
@@ -207,57 +307,87 @@ object GameRuleLogic {
     /** Gib zurück, ob sich der [GameState] noch in der ersten Runde befindet. */
     @JvmStatic
     fun isFirstMove(gameState: GameState) =
-            gameState.undeployedPieceShapes().size == Constants.TOTAL_PIECE_SHAPES
+            gameState.undeployedPieceShapeMask() == PieceShapeSet.ALL
     
-    /** @return a random Pentomino which is not the `x` one (Used to get a valid starting piece). */
+    /**
+     * @return a random Pentomino which is not the `x` one (Used to get a valid starting piece).
+     * @param random die Zufallsquelle, mit einem festen Seed ist das Ergebnis reproduzierbar
+     */
     @JvmStatic
-    fun getRandomPentomino() =
+    @JvmOverloads
+    fun getRandomPentomino(random: Random = Random.Default) =
             PieceShape.values()
                     .filter{ it.size == 5 && it != PieceShape.PENTO_X }
-                    .random()
+                    .random(random)
 
     /** Entferne alle Farben, die keine Steine mehr auf dem Feld platzieren können. */
     @JvmStatic
     fun removeInvalidColors(gameState: GameState) {
-        if (!gameState.hasValidColors()) return
-        if (streamPossibleMoves(gameState).none { isValidSetMove(gameState, it) }) {
+        while (gameState.hasValidColors() && !hasAnyValidMove(gameState))
             gameState.removeActiveColor()
-            removeInvalidColors(gameState)
-        }
     }
 
     /** Gib eine Sammlung an möglichen [SetMove]s zurück. */
     @JvmStatic
-    fun getPossibleMoves(gameState: GameState): Collection<SetMove> =
-            streamPossibleMoves(gameState).toSet()
+    fun getPossibleMoves(gameState: GameState): Collection<SetMove> {
+        val moves = MoveList()
+        collectPossibleMoves(gameState, moves)
+        return List(moves.size) { PackedMove.decode(moves[it]) as SetMove }
+    }
 
-    /** Gib eine Sequenz an möglichen [SetMove]s zurück. */
+    /**
+     * Hängt alle möglichen Züge von [color] als [PackedMove]s an [moves] an, ohne dafür Objekte anzulegen.
+     * Jeder Zug kommt dabei genau einmal vor.
+     */
     @JvmStatic
-    fun streamPossibleMoves(gameState: GameState) =
-            if (isFirstMove(gameState))
-                streamPossibleStartMoves(gameState)
-            else
-                streamAllPossibleMoves(gameState)
+    @JvmOverloads
+    fun collectPossibleMoves(gameState: GameState, moves: MoveList, color: Color = gameState.currentColor) {
+        forEachPossiblePlacement(gameState, color, PieceShapeSet.ALL, gameState.anchorWords(), color.ordinal * BitBoard.WORDS) { shape, variant, x, y ->
+            moves.add(PackedMove.of(color, shape, variant, x, y))
+            true
+        }
+    }
 
-    /** Stream all possible moves if it's the first turn of [gameState]. */
+    /**
+     * Zählt die möglichen Züge von [color], ohne sie zu erzeugen, etwa um die Mobilität eines Gegners zu bewerten.
+     * Dabei muss [color] nicht am Zug sein.
+     */
     @JvmStatic
-    private fun streamPossibleStartMoves(gameState: GameState) = sequence {
-        val kind = gameState.startPiece
-        for (variant in kind.variants) {
-            for (corner in Corner.values()) {
-                yield(SetMove(Piece(gameState.currentColor, kind, variant.key, corner.align(variant.key.area))))
-            }
+    @JvmOverloads
+    fun countPossibleMoves(gameState: GameState, color: Color = gameState.currentColor): Int {
+        var count = 0
+        forEachPossiblePlacement(gameState, color, PieceShapeSet.ALL, gameState.anchorWords(), color.ordinal * BitBoard.WORDS) { _, _, _, _ ->
+            count++
+            true
         }
-    }.filter { isValidSetMove(gameState, it) }
+        return count
+    }
 
+    /**
+     * Prüft, ob [color] noch mindestens einen Stein legen kann, und bricht beim ersten möglichen Zug ab.
+     * Dabei muss [color] nicht am Zug sein.
+     */
     @JvmStatic
-    fun streamAllPossibleMoves(gameState: GameState) = sequence {
-        val validFields: Set<Coordinates> = getValidFields(gameState.board, gameState.currentColor)
+    @JvmOverloads
+    fun hasAnyValidMove(gameState: GameState, color: Color = gameState.currentColor): Boolean =
+            !forEachPossiblePlacement(gameState, color, PieceShapeSet.ALL, gameState.anchorWords(), color.ordinal * BitBoard.WORDS, distinct = false) { _, _, _, _ ->
+                false
+            }
 
-        for (shape in gameState.undeployedPieceShapes())
-            yieldAll(streamPossibleMovesForShape(gameState, shape, validFields))
+    /** Gib eine Sequenz an möglichen [SetMove]s zurück. */
+    @JvmStatic
+    fun streamPossibleMoves(gameState: GameState): Sequence<SetMove> = sequence {
+        val color = gameState.currentColor
+        forEachPossiblePlacement(gameState, color, PieceShapeSet.ALL, gameState.anchorWords(), color.ordinal * BitBoard.WORDS) { shape, variant, x, y ->
+            yield(setMove(color, shape, variant, x, y))
+            true
+        }
     }
 
+    @JvmStatic
+    fun streamAllPossibleMoves(gameState: GameState) =
+            streamPossibleMoves(gameState)
+
     /** Gib eine Sammlung aller möglichen [SetMove]s für die gegebene [PieceShape] zurück. */
     @JvmStatic
     fun getPossibleMovesForShape(gameState: GameState, shape: PieceShape): Set<SetMove> =
@@ -265,50 +395,225 @@ object GameRuleLogic {
 
     /** Gib eine Sequenz aller möglichen [SetMove]s für die gegebene [PieceShape] zurück. */
     @JvmStatic
+    fun streamPossibleMovesForShape(gameState: GameState, shape: PieceShape): Sequence<SetMove> = sequence {
+        val color = gameState.currentColor
+        forEachPossiblePlacement(gameState, color, PieceShapeSet.bit(shape), gameState.anchorWords(), color.ordinal * BitBoard.WORDS) { kind, variant, x, y ->
+            yield(setMove(color, kind, variant, x, y))
+            true
+        }
+    }
+
+    /**
+     * Gib eine Sequenz aller möglichen [SetMove]s für die gegebene [PieceShape] zurück,
+     * die eines der gegebenen Felder (etwa aus [getValidFields]) belegen.
+     * Im ersten Zug werden die Felder nicht beachtet.
+     *
+     * Die Züge werden wie immer von den Ankerfeldern aus gesucht und dann nach den Feldern gefiltert,
+     * da eine Platzierung außer ihrem Ankerfeld auch beliebige andere Felder belegen kann.
+     */
+    @JvmStatic
     fun streamPossibleMovesForShape(
             gameState: GameState,
             shape: PieceShape,
-            validFields: Set<Coordinates> = getValidFields(gameState.board, gameState.currentColor),
-    ): Sequence<SetMove> =
-            if (isFirstMove(gameState)) {
-                if (shape == gameState.startPiece)
-                    streamPossibleStartMoves(gameState)
-                else
-                    sequenceOf()
-            } else sequence {
-                for (field in validFields) {
-                    for (variant in shape.variants) {
-                        val area = variant.key.area
-                        for (x in field.x - area.dx..field.x) {
-                            for (y in field.y - area.dy..field.y) {
-                                yield(SetMove(Piece(gameState.currentColor, shape, variant.value.first, variant.value.second, Coordinates(x, y))))
-                            }
+            validFields: Set<Coordinates>,
+    ): Sequence<SetMove> = sequence {
+        val color = gameState.currentColor
+        val fields = LongArray(BitBoard.WORDS)
+        validFields.filter { Board.contains(it) }.forEach {
+            val index = BitBoard.index(it.x, it.y)
+            fields[BitBoard.word(index)] = fields[BitBoard.word(index)] or BitBoard.bit(index)
+        }
+        val firstMove = isFirstMove(gameState)
+        forEachPossiblePlacement(gameState, color, PieceShapeSet.bit(shape), gameState.anchorWords(), color.ordinal * BitBoard.WORDS) { kind, variant, x, y ->
+            if (firstMove || lowestAnchor(PlacementTable.placement(kind, variant, x, y), fields, 0) >= 0)
+                yield(setMove(color, kind, variant, x, y))
+            true
+        }
+    }
+
+    private val allShapes = PieceShape.values()
+    private val corners = Corner.values()
+
+    /** @return den [SetMove], der die gegebene Variante mit ihrer linken oberen Ecke auf (x, y) legt. */
+    private fun setMove(color: Color, shape: PieceShape, variant: Int, x: Int, y: Int): SetMove {
+        val (rotation, isFlipped) = PlacementTable.transformation(shape, variant)
+        return SetMove(Piece(color, shape, rotation, isFlipped, Coordinates.of(x, y)))
+    }
+
+    /**
+     * Ruft [action] für jede Platzierung einer der [shapes] auf, die [color] gerade legen darf, und zwar für jede genau einmal.
+     *
+     * Statt die umschließenden Rechtecke aller Varianten um jedes Ankerfeld abzusuchen,
+     * wird jedes Ankerfeld mit den Feldern jeder Variante gepaart, die auf ihm liegen können (siehe [PlacementTable.cornerCells]).
+     * Eine Platzierung wird nur für das Ankerfeld mit dem kleinsten Index ausgegeben, das sie bedeckt.
+     * Im ersten Zug werden stattdessen die Ecken des Spielfelds betrachtet.
+     *
+     * @param shapes Bitmaske der zu betrachtenden Formen (siehe [PieceShapeSet.mask])
+     * @param anchors die Bitmaske der Ankerfelder von [color], beginnend bei [offset]
+     * @param distinct ob Platzierungen, die mehrere Ankerfelder bedecken, nur einmal ausgegeben werden sollen
+     * @param action erhält Form, Variante und Position; bricht die Suche ab, wenn sie false zurückgibt
+     * @return false, wenn die Suche durch [action] abgebrochen wurde
+     */
+    private inline fun forEachPossiblePlacement(
+            gameState: GameState,
+            color: Color,
+            shapes: Int,
+            anchors: LongArray,
+            offset: Int,
+            distinct: Boolean = true,
+            action: (shape: PieceShape, variant: Int, x: Int, y: Int) -> Boolean
+    ): Boolean {
+        val board = gameState.board
+        val undeployed = gameState.undeployedPieceShapeMask(color)
+        if (undeployed == PieceShapeSet.ALL) {
+            val kind = gameState.startPiece
+            if (shapes and PieceShapeSet.bit(kind) == 0)
+                return true
+            for (variant in 0 until PlacementTable.variantCount(kind)) {
+                val area = PlacementTable.variant(kind, variant).area
+                for (corner in corners) {
+                    val position = corner.align(area)
+                    val placement = PlacementTable.placement(kind, variant, position.x, position.y)
+                    if (placement >= 0 && canPlace(board, color, placement, true) &&
+                        !action(kind, variant, position.x, position.y))
+                        return false
+                }
+            }
+            return true
+        }
+        
+        val available = shapes and undeployed
+        for (word in 0 until BitBoard.WORDS) {
+            var bits = anchors[offset + word]
+            while (bits != 0L) {
+                val anchor = word * Long.SIZE_BITS + bits.countTrailingZeroBits()
+                bits = bits and (bits - 1)
+                val anchorX = anchor % Constants.BOARD_SIZE
+                val anchorY = anchor / Constants.BOARD_SIZE
+                val directions = PlacementTable.ownDiagonals(board, color, anchorX, anchorY)
+                var remaining = available
+                while (remaining != 0) {
+                    val shape = allShapes[remaining.countTrailingZeroBits()]
+                    remaining = remaining and (remaining - 1)
+                    for (variant in 0 until PlacementTable.variantCount(shape)) {
+                        for (cell in PlacementTable.cornerCells(shape, variant)) {
+                            if (PlacementTable.cellDirections(cell) and directions == 0)
+                                continue
+                            val x = anchorX - PlacementTable.cellX(cell)
+                            val y = anchorY - PlacementTable.cellY(cell)
+                            val placement = PlacementTable.placement(shape, variant, x, y)
+                            if (placement < 0 || distinct && lowestAnchor(placement, anchors, offset) != anchor ||
+                                !canPlace(board, color, placement, false))
+                                continue
+                            if (!action(shape, variant, x, y))
+                                return false
                         }
                     }
                 }
-            }.filter { isValidSetMove(gameState, it) }
+            }
+        }
+        return true
+    }
+
+    /** @return den Index des ersten Felds aus [anchors], das die Platzierung bedeckt, oder -1. */
+    private fun lowestAnchor(placement: Int, anchors: LongArray, offset: Int): Int {
+        val first = PlacementTable.firstWord(placement)
+        for (word in 0 until PlacementTable.WINDOW) {
+            val covered = PlacementTable.occupied(placement, word) and anchors[offset + first + word]
+            if (covered != 0L)
+                return (first + word) * Long.SIZE_BITS + covered.countTrailingZeroBits()
+        }
+        return -1
+    }
+
+    /**
+     * Prüft mithilfe der [PlacementTable], ob [color] die gegebene Platzierung auf das [board] legen darf.
+     * Dabei darf der Stein keine belegten Felder überdecken, nicht kardinal an ein Feld gleicher Farbe angrenzen
+     * und muss entweder eine Ecke des Spielfelds belegen ([firstMove]) oder diagonal an ein Feld gleicher Farbe angrenzen.
+     * Ob die Form noch verfügbar ist, wird hier nicht geprüft.
+     *
+     * @param placement Index einer Platzierung aus der [PlacementTable]
+     * @return ob der Stein dort platziert werden darf
+     */
+    @JvmStatic
+    fun canPlace(board: Board, color: Color, placement: Int, firstMove: Boolean): Boolean {
+        val first = PlacementTable.firstWord(placement)
+        var connected = false
+        for (word in 0 until PlacementTable.WINDOW) {
+            val occupied = PlacementTable.occupied(placement, word)
+            if (occupied and board.getOccupied(first + word) != 0L)
+                return false
+            val own = board.getMask(color, first + word)
+            if (PlacementTable.edges(placement, word) and own != 0L)
+                return false
+            val contact =
+                    if (firstMove) occupied and boardCorners[first + word]
+                    else PlacementTable.corners(placement, word) and own
+            if (contact != 0L)
+                connected = true
+        }
+        return connected
+    }
+
+    /**
+     * @return alle [Coordinates], auf die die gegebene [Color] Steine platzieren könnte.
+     * Anders als [getValidFields] mit [Board] werden dafür die im [GameState] mitgeführten Ankerfelder genutzt.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun getValidFields(gameState: GameState, color: Color = gameState.currentColor): Set<Coordinates> =
+            maskToCoordinates { gameState.getAnchors(color, it) }
 
     /** @return alle [Coordinates], auf die die aktuelle [Color] Steine platzieren könnte. */
     @JvmStatic
-    fun getValidFields(board: Board, color: Color): Set<Coordinates> =
-            getColoredFields(board, color).flatMap { it.corners }.filter { corner ->
-                Board.contains(corner) && board[corner].isEmpty &&
-                corner.neighbors.none { neighbor -> Board.contains(neighbor) && board[neighbor].content == +color }
-            }.toSet()
+    fun getValidFields(board: Board, color: Color): Set<Coordinates> {
+        val anchors = LongArray(BitBoard.WORDS)
+        calculateAnchors(board, color, anchors, LongArray(BitBoard.WORDS))
+        return maskToCoordinates { anchors[it] }
+    }
 
     /** @return alle [Coordinates], deren Position auf dem [Board] die gegebene [Color] hat. */
     @JvmStatic
     fun getColoredFields(board: Board, color: Color): Set<Coordinates> =
-            getColoredFieldsRecursively(board, color, Corner.values().map { it.position }.filter {
-                board[it].content == +color
-            }.toMutableSet())
+            maskToCoordinates { board.getMask(color, it) }
 
-    /** Recursive function filling [coloredFields] with all [Coordinates] on the [Board] with the given [Color]. */
-    private fun getColoredFieldsRecursively(board: Board, color: Color, coloredFields: MutableSet<Coordinates>): Set<Coordinates> {
-        val copy = coloredFields.toSet()
-        coloredFields.addAll(coloredFields.flatMap { it.corners + it.neighbors }.filter {
-            Board.contains(it) && board[it].content == +color
-        })
-        return if (coloredFields == copy) copy else getColoredFieldsRecursively(board, color, coloredFields)
+    /**
+     * Berechnet für [color] die Bitmasken der Ankerfelder und der kardinal angrenzenden Felder
+     * und schreibt sie ab [offset] in [anchors] und [forbidden].
+     */
+    internal fun calculateAnchors(board: Board, color: Color, anchors: LongArray, forbidden: LongArray, offset: Int = 0) {
+        val corners = LongArray(BitBoard.WORDS)
+        forbidden.fill(0, offset, offset + BitBoard.WORDS)
+        for (word in 0 until BitBoard.WORDS) {
+            var own = board.getMask(color, word)
+            while (own != 0L) {
+                val index = word * Long.SIZE_BITS + own.countTrailingZeroBits()
+                val mono = PlacementTable.placement(PieceShape.MONO, 0, index % Constants.BOARD_SIZE, index / Constants.BOARD_SIZE)
+                val first = PlacementTable.firstWord(mono)
+                for (window in 0 until PlacementTable.WINDOW) {
+                    forbidden[offset + first + window] = forbidden[offset + first + window] or PlacementTable.edges(mono, window)
+                    corners[first + window] = corners[first + window] or PlacementTable.corners(mono, window)
+                }
+                own = own and (own - 1)
+            }
+        }
+        for (word in 0 until BitBoard.WORDS) {
+            forbidden[offset + word] = forbidden[offset + word] and board.getMask(color, word).inv()
+            anchors[offset + word] = corners[word] and forbidden[offset + word].inv() and board.getOccupied(word).inv()
+        }
+    }
+
+    /** Sammelt die [Coordinates] aller gesetzten Bits der Maske, deren Longs [word] liefert. */
+    private inline fun maskToCoordinates(word: (Int) -> Long): Set<Coordinates> {
+        val fields = HashSet<Coordinates>()
+        for (index in 0 until BitBoard.WORDS) {
+            var bits = word(index)
+            while (bits != 0L) {
+                val field = index * Long.SIZE_BITS + bits.countTrailingZeroBits()
+                fields.add(Coordinates.of(field % Constants.BOARD_SIZE, field / Constants.BOARD_SIZE))
+                bits = bits and (bits - 1)
+            }
+        }
+        return fields
     }
 }
@@ -0,0 +1,75 @@
+package sc.plugin2021.util
+
+import sc.plugin2021.Move
+
+/**
+ * Eine wachsende Liste von mit [PackedMove] kodierten Zügen auf Basis eines [IntArray].
+ * Sie kann über [clear] wiederverwendet werden, ohne neuen Speicher anzufordern.
+ */
+class MoveList @JvmOverloads constructor(capacity: Int = 64) {
+    private var moves = IntArray(capacity)
+
+    /** Anzahl an Zügen in der Liste. */
+    var size = 0
+        private set
+
+    fun isEmpty() = size == 0
+
+    /** Hängt den kodierten Zug an die Liste an. */
+    fun add(packed: Int) {
+        if (size == moves.size)
+            moves = moves.copyOf(maxOf(moves.size * 2, 16))
+        moves[size++] = packed
+    }
+
+    /** Kodiert den Zug und hängt ihn an die Liste an. */
+    fun add(move: Move) =
+            add(PackedMove.encode(move))
+
+    operator fun get(index: Int): Int {
+        checkIndex(index)
+        return moves[index]
+    }
+
+    operator fun set(index: Int, packed: Int) {
+        checkIndex(index)
+        moves[index] = packed
+    }
+
+    /** Vertauscht die Züge an den gegebenen Positionen, etwa um sie nach einer Bewertung zu sortieren. */
+    fun swap(first: Int, second: Int) {
+        checkIndex(first)
+        checkIndex(second)
+        val move = moves[first]
+        moves[first] = moves[second]
+        moves[second] = move
+    }
+
+    /** Leert die Liste, behält aber den reservierten Speicher. */
+    fun clear() {
+        size = 0
+    }
+
+    operator fun contains(packed: Int): Boolean {
+        for (index in 0 until size)
+            if (moves[index] == packed)
+                return true
+        return false
+    }
+
+    /** @return eine Kopie der kodierten Züge. */
+    fun toIntArray(): IntArray =
+            moves.copyOf(size)
+
+    /** @return die dekodierten Züge. */
+    fun toMoves(): List<Move> =
+            List(size) { PackedMove.decode(moves[it]) }
+
+    private fun checkIndex(index: Int) {
+        if (index < 0 || index >= size)
+            throw IndexOutOfBoundsException("Index $index, Größe $size")
+    }
+
+    override fun toString(): String =
+            toMoves().joinToString(prefix = "MoveList[", postfix = "]")
+}
@@ -0,0 +1,107 @@
+package sc.plugin2021.util
+
+import sc.plugin2021.Board
+import sc.plugin2021.Color
+import sc.plugin2021.Coordinates
+import sc.plugin2021.Move
+import sc.plugin2021.Piece
+import sc.plugin2021.PieceShape
+import sc.plugin2021.SetMove
+import sc.plugin2021.SkipMove
+
+/**
+ * Kodiert einen [Move] als einzelnen Int, damit Suchverfahren Züge ohne Objekte erzeugen und sortieren können.
+ *
+ * Aufbau (vom niedrigsten Bit an):
+ * - 5 Bit x- und 5 Bit y-Koordinate der linken oberen Ecke der Variante
+ * - 3 Bit Index der Variante (siehe [PlacementTable.variant])
+ * - 5 Bit Ordinal der [PieceShape]
+ * - 2 Bit Ordinal der [Color]
+ * - 1 Bit, das einen [SkipMove] kennzeichnet; dann ist nur die Farbe gesetzt
+ */
+object PackedMove {
+    private const val COORDINATE_BITS = 5
+    private const val VARIANT_BITS = 3
+    private const val SHAPE_BITS = 5
+    private const val COLOR_BITS = 2
+
+    private const val Y_SHIFT = COORDINATE_BITS
+    private const val VARIANT_SHIFT = Y_SHIFT + COORDINATE_BITS
+    private const val SHAPE_SHIFT = VARIANT_SHIFT + VARIANT_BITS
+    private const val COLOR_SHIFT = SHAPE_SHIFT + SHAPE_BITS
+    private const val SKIP_FLAG = 1 shl (COLOR_SHIFT + COLOR_BITS)
+
+    private val colors = Color.values()
+    private val shapes = PieceShape.values()
+
+    /** @return den kodierten [SetMove] der gegebenen Variante mit ihrer linken oberen Ecke auf (x, y). */
+    @JvmStatic
+    fun of(color: Color, shape: PieceShape, variant: Int, x: Int, y: Int): Int =
+            x or (y shl Y_SHIFT) or (variant shl VARIANT_SHIFT) or
+            (shape.ordinal shl SHAPE_SHIFT) or (color.ordinal shl COLOR_SHIFT)
+
+    /** @return den kodierten [SkipMove] der gegebenen Farbe. */
+    @JvmStatic
+    fun skip(color: Color): Int =
+            SKIP_FLAG or (color.ordinal shl COLOR_SHIFT)
+
+    /**
+     * Kodiert den gegebenen Zug.
+     * @throws IllegalArgumentException wenn der Stein nicht vollständig auf dem Spielfeld liegt
+     */
+    @JvmStatic
+    fun encode(move: Move): Int = when (move) {
+        is SkipMove -> skip(move.color)
+        is SetMove -> {
+            val piece = move.piece
+            require(piece.coordinates.all { Board.contains(it) }) { "$move liegt nicht auf dem Spielfeld" }
+            of(piece.color, piece.kind, PlacementTable.variantIndex(piece.kind, piece.rotation, piece.isFlipped),
+                    piece.position.x, piece.position.y)
+        }
+    }
+
+    /** @return den [Move], den [packed] kodiert. */
+    @JvmStatic
+    fun decode(packed: Int): Move {
+        if (isSkip(packed))
+            return SkipMove(color(packed))
+        val shape = shape(packed)
+        val (rotation, isFlipped) = PlacementTable.transformation(shape, variant(packed))
+        return SetMove(Piece(color(packed), shape, rotation, isFlipped, Coordinates.of(x(packed), y(packed))))
+    }
+
+    /** @return ob [packed] einen [SkipMove] kodiert. */
+    @JvmStatic
+    fun isSkip(packed: Int): Boolean =
+            packed and SKIP_FLAG != 0
+
+    @JvmStatic
+    fun color(packed: Int): Color =
+            colors[packed ushr COLOR_SHIFT and (1 shl COLOR_BITS) - 1]
+
+    @JvmStatic
+    fun shape(packed: Int): PieceShape =
+            shapes[packed ushr SHAPE_SHIFT and (1 shl SHAPE_BITS) - 1]
+
+    @JvmStatic
+    fun variant(packed: Int): Int =
+            packed ushr VARIANT_SHIFT and (1 shl VARIANT_BITS) - 1
+
+    @JvmStatic
+    fun x(packed: Int): Int =
+            packed and (1 shl COORDINATE_BITS) - 1
+
+    @JvmStatic
+    fun y(packed: Int): Int =
+            packed ushr Y_SHIFT and (1 shl COORDINATE_BITS) - 1
+
+    /** @return den Index der Platzierung des kodierten [SetMove]s in der [PlacementTable]. */
+    @JvmStatic
+    fun placement(packed: Int): Int =
+            PlacementTable.placement(shape(packed), variant(packed), x(packed), y(packed))
+
+    /** @return eine lesbare Darstellung des kodierten Zugs. */
+    @JvmStatic
+    fun toString(packed: Int): String =
+            decode(packed).toString()
+}
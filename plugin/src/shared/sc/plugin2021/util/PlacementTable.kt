@@ -0,0 +1,296 @@
+package sc.plugin2021.util
+
+import sc.plugin2021.Board
+import sc.plugin2021.Color
+import sc.plugin2021.Coordinates
+import sc.plugin2021.Piece
+import sc.plugin2021.PieceShape
+import sc.plugin2021.Rotation
+import sc.plugin2021.Vector
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Eine beim Laden der Klasse berechnete Tabelle aller Platzierungen,
+ * also jeder Variante jeder [PieceShape] an jeder Position, an der sie vollständig auf dem Spielfeld liegt.
+ *
+ * Zu jeder Platzierung werden drei Bitmasken (siehe [BitBoard]) gespeichert:
+ * - [occupied]: die Felder, die der Stein belegt
+ * - [edges]: die Felder, die kardinal an den Stein angrenzen
+ * - [corners]: die Felder, die nur über eine Ecke an den Stein angrenzen
+ *
+ * Da ein Stein höchstens fünf Zeilen hoch ist, liegen alle drei Masken innerhalb von [WINDOW] Longs,
+ * beginnend bei [firstWord]. Es wird daher nur dieser Ausschnitt gespeichert.
+ */
+object PlacementTable {
+    /** Anzahl an Longs, die für jede Maske einer Platzierung gespeichert werden. */
+    const val WINDOW = 3
+
+    /** Anzahl an Bits je Koordinate in den Einträgen von [cornerCells]. */
+    private const val CELL_BITS = 4
+
+    /** Die Varianten jeder Form, in der Reihenfolge von [PieceShape.variants]. */
+    private val variants: Array<List<Set<Coordinates>>> =
+            Array(PieceShape.values().size) { PieceShape.values()[it].variants.keys.toList() }
+
+    /** Für jede Form und Variante die Transformation, die sie erzeugt hat. */
+    private val generators: Array<List<Pair<Rotation, Boolean>>> =
+            Array(PieceShape.values().size) { PieceShape.values()[it].variants.values.toList() }
+
+    /** Für jede Form und Variante die Summe der Hashcodes ihrer Felder, siehe [hashCode]. */
+    private val variantHashes: Array<IntArray> =
+            Array(variants.size) { shape -> IntArray(variants[shape].size) { variants[shape][it].hashCode() } }
+
+    /** Für jede Form der Index der Variante, die eine Transformation (`rotation * 2 + flip`) erzeugt. */
+    private val transformations: Array<IntArray> =
+            Array(PieceShape.values().size) { shape ->
+                IntArray(Rotation.values().size * 2) { transformation ->
+                    val kind = PieceShape.values()[shape]
+                    variants[shape].indexOf(kind.transform(Rotation.values()[transformation / 2], transformation % 2 == 1))
+                }
+            }
+
+    /** Die diagonalen Richtungen, Bit `i` einer Richtungsmaske steht für die `i`-te. */
+    private val diagonals = Vector.diagonals.toList()
+    private val diagonalX = IntArray(diagonals.size) { diagonals[it].dx }
+    private val diagonalY = IntArray(diagonals.size) { diagonals[it].dy }
+
+    /**
+     * Für jede Form und Variante die Felder, die auf einem Ankerfeld liegen können,
+     * also eine Ecke haben, die weder zum Stein gehört noch kardinal an ihn angrenzt.
+     * Jeder Eintrag enthält x, y und die Maske dieser Richtungen, siehe [cornerCells].
+     */
+    private val cornerCells: Array<Array<IntArray>> =
+            Array(variants.size) { shape ->
+                Array(variants[shape].size) { variant ->
+                    val cells = variants[shape][variant]
+                    cells.mapNotNull { cell ->
+                        var directions = 0
+                        diagonals.forEachIndexed { index, diagonal ->
+                            val corner = cell + diagonal
+                            if (corner !in cells && Vector.cardinals.none { corner + it in cells })
+                                directions = directions or (1 shl index)
+                        }
+                        if (directions == 0) null
+                        else cell.x or (cell.y shl CELL_BITS) or (directions shl 2 * CELL_BITS)
+                    }.toIntArray()
+                }
+            }
+
+    /** Für jede Form und Variante die Breite und Höhe des umschließenden Rechtecks sowie der Index der ersten Platzierung. */
+    private val widths: Array<IntArray>
+    private val heights: Array<IntArray>
+    private val bases: Array<IntArray>
+
+    /** Anzahl an Platzierungen in der Tabelle. */
+    val size: Int
+
+    /** Die Felder jeder Platzierung, werden bei der ersten Anfrage erzeugt. */
+    private val placementCoordinates: AtomicReferenceArray<Set<Coordinates>>
+
+    private val firstWords: IntArray
+    private val occupiedMasks: LongArray
+    private val edgeMasks: LongArray
+    private val cornerMasks: LongArray
+
+    init {
+        var count = 0
+        widths = Array(variants.size) { IntArray(variants[it].size) }
+        heights = Array(variants.size) { IntArray(variants[it].size) }
+        bases = Array(variants.size) { IntArray(variants[it].size) }
+        variants.forEachIndexed { shape, list ->
+            list.forEachIndexed { variant, coordinates ->
+                val area = coordinates.area
+                widths[shape][variant] = Constants.BOARD_SIZE - area.dx
+                heights[shape][variant] = Constants.BOARD_SIZE - area.dy
+                bases[shape][variant] = count
+                count += widths[shape][variant] * heights[shape][variant]
+            }
+        }
+        size = count
+        placementCoordinates = AtomicReferenceArray(size)
+        firstWords = IntArray(size)
+        occupiedMasks = LongArray(size * WINDOW)
+        edgeMasks = LongArray(size * WINDOW)
+        cornerMasks = LongArray(size * WINDOW)
+
+        val occupied = LongArray(BitBoard.WORDS)
+        val edges = LongArray(BitBoard.WORDS)
+        val corners = LongArray(BitBoard.WORDS)
+        variants.forEachIndexed { shape, list ->
+            list.forEachIndexed { variant, coordinates ->
+                for (y in 0 until heights[shape][variant]) {
+                    for (x in 0 until widths[shape][variant]) {
+                        occupied.fill(0)
+                        edges.fill(0)
+                        corners.fill(0)
+                        val cells = coordinates.map { Coordinates(it.x + x, it.y + y) }
+                        cells.forEach { cell -> occupied.setBit(cell) }
+                        cells.forEach { cell ->
+                            Vector.cardinals.forEach { edges.setBit(cell + it, occupied) }
+                            Vector.diagonals.forEach { corners.setBit(cell + it, occupied) }
+                        }
+                        for (word in 0 until BitBoard.WORDS)
+                            corners[word] = corners[word] and edges[word].inv()
+
+                        val placement = bases[shape][variant] + y * widths[shape][variant] + x
+                        val first = minOf(BitBoard.word(BitBoard.index(maxOf(x - 1, 0), maxOf(y - 1, 0))), BitBoard.WORDS - WINDOW)
+                        firstWords[placement] = first
+                        for (word in 0 until BitBoard.WORDS) {
+                            if (word in first until first + WINDOW) {
+                                occupiedMasks[placement * WINDOW + word - first] = occupied[word]
+                                edgeMasks[placement * WINDOW + word - first] = edges[word]
+                                cornerMasks[placement * WINDOW + word - first] = corners[word]
+                            } else {
+                                check(occupied[word] or edges[word] or corners[word] == 0L) {
+                                    "Placement of ${PieceShape.values()[shape]} at [$x, $y] exceeds the mask window"
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Setzt das Bit der Koordinaten, falls sie auf dem Spielfeld und nicht in [exclude] liegen. */
+    private fun LongArray.setBit(position: Coordinates, exclude: LongArray? = null) {
+        if (position.x !in 0 until Constants.BOARD_SIZE || position.y !in 0 until Constants.BOARD_SIZE)
+            return
+        val index = BitBoard.index(position.x, position.y)
+        if (exclude != null && BitBoard.isSet(exclude, index))
+            return
+        this[BitBoard.word(index)] = this[BitBoard.word(index)] or BitBoard.bit(index)
+    }
+
+    /** @return die Anzahl an unterschiedlichen Varianten der gegebenen Form. */
+    @JvmStatic
+    fun variantCount(shape: PieceShape): Int =
+            variants[shape.ordinal].size
+
+    /** @return die normalisierten Koordinaten der Variante mit dem gegebenen Index. */
+    @JvmStatic
+    fun variant(shape: PieceShape, variant: Int): Set<Coordinates> =
+            variants[shape.ordinal][variant]
+
+    /** @return eine Transformation, die die Variante mit dem gegebenen Index erzeugt, siehe [PieceShape.variants]. */
+    @JvmStatic
+    fun transformation(shape: PieceShape, variant: Int): Pair<Rotation, Boolean> =
+            generators[shape.ordinal][variant]
+
+    /**
+     * @return die Felder der Variante, die auf einem Ankerfeld liegen können.
+     * Ein Eintrag enthält die x-Koordinate ([cellX]), die y-Koordinate ([cellY])
+     * und die Maske der diagonalen Richtungen ([cellDirections]), in die das Feld eine freie Ecke hat.
+     */
+    @JvmStatic
+    fun cornerCells(shape: PieceShape, variant: Int): IntArray =
+            cornerCells[shape.ordinal][variant]
+
+    @JvmStatic
+    fun cellX(cell: Int): Int =
+            cell and (1 shl CELL_BITS) - 1
+
+    @JvmStatic
+    fun cellY(cell: Int): Int =
+            cell ushr CELL_BITS and (1 shl CELL_BITS) - 1
+
+    @JvmStatic
+    fun cellDirections(cell: Int): Int =
+            cell ushr 2 * CELL_BITS
+
+    /** @return die Maske der diagonalen Richtungen von (x, y) aus, in denen ein Feld von [color] liegt. */
+    @JvmStatic
+    fun ownDiagonals(board: Board, color: Color, x: Int, y: Int): Int {
+        var directions = 0
+        for (index in diagonalX.indices) {
+            val cornerX = x + diagonalX[index]
+            val cornerY = y + diagonalY[index]
+            if (cornerX in 0 until Constants.BOARD_SIZE && cornerY in 0 until Constants.BOARD_SIZE) {
+                val corner = BitBoard.index(cornerX, cornerY)
+                if (board.getMask(color, BitBoard.word(corner)) and BitBoard.bit(corner) != 0L)
+                    directions = directions or (1 shl index)
+            }
+        }
+        return directions
+    }
+
+    /** @return den Index der Variante, die durch die gegebene Transformation entsteht. */
+    @JvmStatic
+    fun variantIndex(shape: PieceShape, rotation: Rotation, isFlipped: Boolean): Int =
+            transformations[shape.ordinal][rotation.ordinal * 2 + if (isFlipped) 1 else 0]
+
+    /**
+     * @return den Index der Platzierung der gegebenen Variante mit ihrer linken oberen Ecke auf (x, y),
+     *         oder -1 wenn sie dort nicht vollständig auf dem Spielfeld liegt.
+     */
+    @JvmStatic
+    fun placement(shape: PieceShape, variant: Int, x: Int, y: Int): Int {
+        val width = widths[shape.ordinal][variant]
+        if (x < 0 || x >= width || y < 0 || y >= heights[shape.ordinal][variant])
+            return -1
+        return bases[shape.ordinal][variant] + y * width + x
+    }
+
+    /** @return den Index der Platzierung des gegebenen Steins, oder -1 wenn er nicht vollständig auf dem Spielfeld liegt. */
+    @JvmStatic
+    fun placement(piece: Piece): Int =
+            placement(piece.kind, variantIndex(piece.kind, piece.rotation, piece.isFlipped), piece.position.x, piece.position.y)
+
+    /**
+     * @return die Felder, die die gegebene Variante mit ihrer linken oberen Ecke auf (x, y) belegt.
+     * Liegt sie dort vollständig auf dem Spielfeld, ist das Set unveränderlich und wird für alle Anfragen wiederverwendet.
+     */
+    @JvmStatic
+    fun coordinates(shape: PieceShape, variant: Int, x: Int, y: Int): Set<Coordinates> {
+        val placement = placement(shape, variant, x, y)
+        if (placement == -1)
+            return variants[shape.ordinal][variant].mapTo(HashSet()) { Coordinates.of(it.x + x, it.y + y) }
+        return placementCoordinates.get(placement) ?: PlacementCoordinates(
+                variants[shape.ordinal][variant].map { Coordinates.of(it.x + x, it.y + y) }.toTypedArray(),
+                hashCode(shape, variant, x, y)
+        ).also { placementCoordinates.set(placement, it) }
+    }
+
+    /**
+     * @return den Hashcode der Felder, die die gegebene Variante mit ihrer linken oberen Ecke auf (x, y) belegt,
+     *         also den von [coordinates], ohne das Set zu erzeugen.
+     */
+    @JvmStatic
+    fun hashCode(shape: PieceShape, variant: Int, x: Int, y: Int): Int =
+            // The hash of a set is the sum of its elements and the hash of Coordinates(x, y) is 31 * x + y
+            variantHashes[shape.ordinal][variant] + shape.size * (31 * x + y)
+
+    /** @return den Index des ersten Longs auf dem Spielfeld, das von den Masken der Platzierung abgedeckt wird. */
+    @JvmStatic
+    fun firstWord(placement: Int): Int =
+            firstWords[placement]
+
+    /** @return das Long mit Index [word] innerhalb des Fensters der Felder, die die Platzierung belegt. */
+    @JvmStatic
+    fun occupied(placement: Int, word: Int): Long =
+            occupiedMasks[placement * WINDOW + word]
+
+    /** @return das Long mit Index [word] innerhalb des Fensters der Felder, die kardinal an die Platzierung angrenzen. */
+    @JvmStatic
+    fun edges(placement: Int, word: Int): Long =
+            edgeMasks[placement * WINDOW + word]
+
+    /** @return das Long mit Index [word] innerhalb des Fensters der Felder, die nur diagonal an die Platzierung angrenzen. */
+    @JvmStatic
+    fun corners(placement: Int, word: Int): Long =
+            cornerMasks[placement * WINDOW + word]
+}
+
+/** Ein unveränderliches Set der Felder einer Platzierung, dessen Hashcode nur einmal berechnet wird. */
+private class PlacementCoordinates(private val cells: Array<Coordinates>, private val hash: Int): AbstractSet<Coordinates>() {
+    override val size: Int
+        get() = cells.size
+
+    override fun contains(element: Coordinates): Boolean =
+            cells.contains(element)
+
+    override fun iterator(): Iterator<Coordinates> =
+            cells.iterator()
+
+    override fun hashCode(): Int = hash
+}
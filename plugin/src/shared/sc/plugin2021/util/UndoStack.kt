@@ -0,0 +1,78 @@
+package sc.plugin2021.util
+
+import sc.plugin2021.GameState
+import sc.plugin2021.Move
+
+/**
+ * Ein Stapel von Informationen, mit denen [GameRuleLogic.undoMove] Züge wieder zurücknehmen kann,
+ * die mit [GameRuleLogic.performMove] oder [GameRuleLogic.performPackedMove] ausgeführt wurden.
+ * So kann eine Tiefensuche auf einem einzigen [GameState] arbeiten, statt ihn in jedem Knoten zu kopieren.
+ *
+ * Der Speicher wird beim Wachsen wiederverwendet, nach dem Aufwärmen werden keine Objekte mehr angelegt.
+ */
+class UndoStack @JvmOverloads constructor(capacity: Int = 32) {
+    /** Anzahl an Zügen, die zurückgenommen werden können. */
+    var size = 0
+        private set
+
+    internal var moves = arrayOfNulls<Move>(capacity)
+        private set
+    /** Die als [PackedMove] ausgeführten Züge, wo [moves] null ist. */
+    internal var packedMoves = IntArray(capacity)
+        private set
+    internal var lastMoves = arrayOfNulls<Move>(capacity)
+        private set
+    internal var turns = IntArray(capacity)
+        private set
+    internal var validColors = IntArray(capacity)
+        private set
+    internal var lastMoveMonos = IntArray(capacity)
+        private set
+    internal var anchors = LongArray(capacity * ANCHOR_WORDS)
+        private set
+
+    fun isEmpty() = size == 0
+
+    /** Reserviert einen neuen Eintrag und gibt seinen Index zurück. */
+    internal fun push(): Int {
+        if (size == turns.size) {
+            val capacity = maxOf(size * 2, 8)
+            moves = moves.copyOf(capacity)
+            packedMoves = packedMoves.copyOf(capacity)
+            lastMoves = lastMoves.copyOf(capacity)
+            turns = turns.copyOf(capacity)
+            validColors = validColors.copyOf(capacity)
+            lastMoveMonos = lastMoveMonos.copyOf(capacity)
+            anchors = anchors.copyOf(capacity * ANCHOR_WORDS)
+        }
+        return size++
+    }
+
+    /** @return den Index des obersten Eintrags. */
+    internal fun peek(): Int {
+        if (size == 0)
+            throw IllegalStateException("Es gibt keinen Zug, der zurückgenommen werden könnte")
+        return size - 1
+    }
+
+    /** Entfernt den obersten Eintrag. */
+    internal fun pop() {
+        val index = peek()
+        // Keep no references to moves which are out of scope
+        moves[index] = null
+        lastMoves[index] = null
+        size--
+    }
+
+    /** Leert den Stapel, ohne die Züge zurückzunehmen. */
+    fun clear() {
+        moves.fill(null, 0, size)
+        lastMoves.fill(null, 0, size)
+        size = 0
+    }
+
+    companion object {
+        /** Anzahl an Longs, die für die Ankermasken eines Eintrags benötigt werden. */
+        internal val ANCHOR_WORDS = 2 * Constants.COLORS * BitBoard.WORDS
+    }
+}
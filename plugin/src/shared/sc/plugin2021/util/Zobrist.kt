@@ -0,0 +1,73 @@
+package sc.plugin2021.util
+
+import sc.plugin2021.Color
+import sc.plugin2021.PieceShape
+import kotlin.random.Random
+
+/**
+ * Zufällige Schlüssel für das Zobrist-Hashing eines [sc.plugin2021.GameState].
+ *
+ * Der Schlüssel eines Spielstands ist das XOR der Schlüssel aller seiner Bestandteile,
+ * sodass er bei jeder Änderung durch ein XOR des betroffenen Schlüssels aktualisiert werden kann.
+ * Die Schlüssel werden aus einem festen Seed erzeugt und sind daher in jedem Prozess gleich.
+ */
+object Zobrist {
+    private const val SEED = 0x5EED_B10C_0521L
+    private const val SHAPE_CHUNK_BITS = 7
+    private const val SHAPE_CHUNKS = Constants.TOTAL_PIECE_SHAPES / SHAPE_CHUNK_BITS
+
+    private val random = Random(SEED)
+
+    private val fields = LongArray(Constants.COLORS * BitBoard.FIELDS) { random.nextLong() }
+    private val shapes = LongArray(Constants.COLORS * Constants.TOTAL_PIECE_SHAPES) { random.nextLong() }
+    /** Für jede Farbe und jeden 7-Bit Abschnitt einer [sc.plugin2021.PieceShapeSet.mask] das XOR der enthaltenen Formen. */
+    private val shapeChunks = LongArray(Constants.COLORS * SHAPE_CHUNKS shl SHAPE_CHUNK_BITS) { index ->
+        val color = index / (SHAPE_CHUNKS shl SHAPE_CHUNK_BITS)
+        val first = (index shr SHAPE_CHUNK_BITS) % SHAPE_CHUNKS * SHAPE_CHUNK_BITS
+        var bits = index and (1 shl SHAPE_CHUNK_BITS) - 1
+        var key = 0L
+        while (bits != 0) {
+            key = key xor shapes[color * Constants.TOTAL_PIECE_SHAPES + first + bits.countTrailingZeroBits()]
+            bits = bits and (bits - 1)
+        }
+        key
+    }
+    private val currentColors = LongArray(Constants.COLORS) { random.nextLong() }
+    private val validColors = LongArray(Constants.COLORS) { random.nextLong() }
+    private val lastMoveMonos = LongArray(Constants.COLORS * 2) { random.nextLong() }
+
+    /** @return den Schlüssel für das Feld mit dem gegebenen Index (siehe [BitBoard]) in der gegebenen Farbe. */
+    @JvmStatic
+    fun field(color: Color, index: Int): Long =
+            fields[color.ordinal * BitBoard.FIELDS + index]
+
+    /** @return den Schlüssel dafür, dass [color] die gegebene Form noch nicht gesetzt hat. */
+    @JvmStatic
+    fun shape(color: Color, shape: PieceShape): Long =
+            shapes[color.ordinal * Constants.TOTAL_PIECE_SHAPES + shape.ordinal]
+
+    /** @return das XOR der Schlüssel aller Formen in der Bitmaske (siehe [sc.plugin2021.PieceShapeSet.mask]). */
+    @JvmStatic
+    fun shapes(color: Color, mask: Int): Long {
+        val offset = color.ordinal * SHAPE_CHUNKS
+        var key = 0L
+        for (chunk in 0 until SHAPE_CHUNKS)
+            key = key xor shapeChunks[(offset + chunk) shl SHAPE_CHUNK_BITS or (mask ushr chunk * SHAPE_CHUNK_BITS and (1 shl SHAPE_CHUNK_BITS) - 1)]
+        return key
+    }
+
+    /** @return den Schlüssel dafür, dass [color] am Zug ist. */
+    @JvmStatic
+    fun currentColor(color: Color): Long =
+            currentColors[color.ordinal]
+
+    /** @return den Schlüssel dafür, dass [color] noch im Spiel ist. */
+    @JvmStatic
+    fun validColor(color: Color): Long =
+            validColors[color.ordinal]
+
+    /** @return den Schlüssel dafür, dass [color] alle Steine gesetzt hat und ob das Monomino der letzte war. */
+    @JvmStatic
+    fun lastMoveMono(color: Color, mono: Boolean): Long =
+            lastMoveMonos[color.ordinal * 2 + if (mono) 1 else 0]
+}
@@ -10,6 +10,7 @@ class BlokusXStream: XStreamProvider {
                     Board::class.java, Coordinates::class.java,
                     Field::class.java, GameState::class.java,
                     Move::class.java, Piece::class.java,
-                    Color::class.java, Team::class.java)
+                    Color::class.java, Team::class.java,
+                    PieceShapeSet::class.java)
     
 }
\ No newline at end of file
@@ -23,11 +23,12 @@ class BoardConverter: Converter {
 
         for (y in 0 until Constants.BOARD_SIZE) {
             for (x in 0 until Constants.BOARD_SIZE) {
-                if (board[x, y].content != FieldContent.EMPTY) {
+                val content = board.getContent(x, y)
+                if (content != FieldContent.EMPTY) {
                     writer.startNode("field")
                     writer.addAttribute("x", x.toString())
                     writer.addAttribute("y", y.toString())
-                    writer.addAttribute("content", board[x, y].content.toString())
+                    writer.addAttribute("content", content.toString())
                     writer.endNode()
                 }
             }
@@ -35,8 +36,7 @@ class BoardConverter: Converter {
     }
 
     override fun unmarshal(reader: HierarchicalStreamReader, context: UnmarshallingContext): Any {
-        val field: Array<Array<FieldContent>> =
-                Array(Constants.BOARD_SIZE) { Array(Constants.BOARD_SIZE) { FieldContent.EMPTY }}
+        val board = Board()
 
         while (reader.hasMoreChildren()) {
             reader.moveDown()
@@ -44,13 +44,13 @@ class BoardConverter: Converter {
                 val x = reader.getAttribute("x").toInt()
                 val y = reader.getAttribute("y").toInt()
                 val content = FieldContent.valueOf(reader.getAttribute("content"))
-                field[y][x] = content
+                board[x, y] = content
             } catch (e: NullPointerException) {
                 logger.warn("Failed to read field")
             }
             reader.moveUp()
         }
 
-        return Board(field)
+        return board
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package sc.plugin2021.xstream
+
+import com.thoughtworks.xstream.converters.Converter
+import com.thoughtworks.xstream.converters.MarshallingContext
+import com.thoughtworks.xstream.converters.UnmarshallingContext
+import com.thoughtworks.xstream.io.HierarchicalStreamReader
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter
+import org.slf4j.LoggerFactory
+import sc.plugin2021.PieceShape
+import sc.plugin2021.PieceShapeSet
+
+/** Schreibt ein [PieceShapeSet] wie eine gewöhnliche Sammlung von [PieceShape]s. */
+class PieceShapeSetConverter: Converter {
+    companion object {
+        val logger = LoggerFactory.getLogger(PieceShapeSetConverter::class.java)
+    }
+
+    override fun canConvert(type: Class<*>?): Boolean =
+            type == PieceShapeSet::class.java
+
+    override fun marshal(source: Any, writer: HierarchicalStreamWriter, context: MarshallingContext) {
+        for (shape in source as PieceShapeSet) {
+            writer.startNode("shape")
+            writer.setValue(shape.name)
+            writer.endNode()
+        }
+    }
+
+    override fun unmarshal(reader: HierarchicalStreamReader, context: UnmarshallingContext): Any {
+        val shapes = PieceShapeSet()
+
+        while (reader.hasMoreChildren()) {
+            reader.moveDown()
+            try {
+                shapes.add(PieceShape.valueOf(reader.value))
+            } catch (e: IllegalArgumentException) {
+                logger.warn("Failed to read shape '${reader.value}'")
+            }
+            reader.moveUp()
+        }
+
+        return shapes
+    }
+}
@@ -1,9 +1,11 @@
 package sc.plugin2021
 
+import io.kotest.assertions.throwables.shouldThrow
 import io.kotest.core.spec.style.WordSpec
 import io.kotest.matchers.collections.shouldHaveSize
 import io.kotest.matchers.shouldBe
 import io.kotest.matchers.shouldNotBe
+import sc.plugin2021.util.Constants
 
 class BoardTest : WordSpec({
     val changingFields = setOf(
@@ -39,6 +41,39 @@ class BoardTest : WordSpec({
                 one.compare(two) shouldHaveSize 0
             }
         }
+        "cloned" should {
+            changingFields.forEach { one[it.coordinates] = it.content }
+            val clone = one.clone()
+            "equal the original" {
+                clone shouldBe one
+                clone.hashCode() shouldBe one.hashCode()
+            }
+            "not be affected by changes to the original" {
+                one[0, 0] = FieldContent.GREEN
+                clone[0, 0].content shouldBe FieldContent.EMPTY
+                clone shouldNotBe one
+            }
+        }
+        "a field is overwritten" should {
+            one[2, 3] = FieldContent.RED
+            one[2, 3] = FieldContent.BLUE
+            "only hold the new content" {
+                one[2, 3].content shouldBe FieldContent.BLUE
+                one.compare(Board()) shouldBe setOf(Field(Coordinates(2, 3), FieldContent.EMPTY))
+            }
+            "be empty again once cleared" {
+                one[2, 3] = FieldContent.EMPTY
+                one.isEmpty() shouldBe true
+                one shouldBe two
+            }
+        }
+        "accessed out of bounds" should {
+            "throw an ArrayIndexOutOfBoundsException" {
+                shouldThrow<ArrayIndexOutOfBoundsException> { one[-1, 0] }
+                shouldThrow<ArrayIndexOutOfBoundsException> { one[0, Constants.BOARD_SIZE] }
+                shouldThrow<ArrayIndexOutOfBoundsException> { one.set(Constants.BOARD_SIZE, 3, FieldContent.RED) }
+            }
+        }
         "converted to string" should {
             one[0, 0] = FieldContent.RED
             one[1, 3] = FieldContent.GREEN
@@ -0,0 +1,47 @@
+package sc.plugin2021
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.kotest.matchers.types.shouldNotBeSameInstanceAs
+
+class CoordinatesTest: WordSpec({
+    "Coordinates" When {
+        "created on the board" should {
+            "always be the same instance" {
+                Coordinates.of(3, 17) shouldBeSameInstanceAs Coordinates.of(3, 17)
+                Coordinates.of(0, 0) shouldBeSameInstanceAs Coordinates.origin
+                Coordinates.of(2, 3) + Vector(1, 1) shouldBeSameInstanceAs Coordinates.of(3, 4)
+                Coordinates.of(2, 3) - Vector(1, 1) shouldBeSameInstanceAs Coordinates.of(1, 2)
+            }
+            "equal constructed Coordinates" {
+                Coordinates.of(5, 6) shouldBe Coordinates(5, 6)
+            }
+        }
+        "created outside of the board" should {
+            "still equal constructed Coordinates" {
+                Coordinates.of(-1, 20) shouldBe Coordinates(-1, 20)
+                Coordinates.of(-1, 20) shouldNotBeSameInstanceAs Coordinates.of(-1, 20)
+            }
+        }
+        "asked for corners and neighbors" should {
+            "cache them for fields on the board" {
+                Coordinates.of(0, 0).corners shouldBe
+                        setOf(Coordinates(-1, -1), Coordinates(-1, 1), Coordinates(1, -1), Coordinates(1, 1))
+                Coordinates.of(0, 0).neighbors shouldBe
+                        setOf(Coordinates(-1, 0), Coordinates(0, -1), Coordinates(1, 0), Coordinates(0, 1))
+                Coordinates.of(4, 4).corners shouldBeSameInstanceAs Coordinates(4, 4).corners
+            }
+            "not allow modifying the cache" {
+                shouldThrow<UnsupportedOperationException> {
+                    (Coordinates.of(4, 4).neighbors as MutableSet<Coordinates>).clear()
+                }
+            }
+            "compute them outside of the board" {
+                Coordinates(-1, -1).neighbors shouldBe
+                        setOf(Coordinates(-2, -1), Coordinates(-1, -2), Coordinates(0, -1), Coordinates(-1, 0))
+            }
+        }
+    }
+})
@@ -4,9 +4,15 @@ import io.kotest.assertions.throwables.shouldNotThrow
 import io.kotest.assertions.throwables.shouldThrow
 import io.kotest.core.spec.style.WordSpec
 import io.kotest.matchers.collections.shouldContainExactlyInAnyOrder
+import io.kotest.matchers.ints.shouldBeGreaterThan
 import io.kotest.matchers.shouldBe
+import sc.helpers.testXStream
 import sc.plugin2021.util.Constants
 import sc.plugin2021.util.GameRuleLogic
+import sc.plugin2021.util.MoveList
+import sc.plugin2021.util.MoveMistake
+import sc.plugin2021.util.PackedMove
+import sc.plugin2021.util.UndoStack
 import sc.shared.InvalidMoveException
 
 class GameRuleLogicTest: WordSpec({
@@ -34,6 +40,18 @@ class GameRuleLogicTest: WordSpec({
                 }
             }
         }
+        "they have the right shape but are placed out of bounds" should {
+            val invalidMove = SetMove(Piece(Color.BLUE, PieceShape.PENTO_U, Rotation.NONE, false, Coordinates(-1, 2)))
+            "throw a InvalidMoveException" {
+                shouldThrow<InvalidMoveException> {
+                    GameRuleLogic.validateSetMove(gameState, invalidMove)
+                }.mistake shouldBe MoveMistake.OUT_OF_BOUNDS
+            }
+            "be reported as invalid without throwing" {
+                GameRuleLogic.checkSetMove(gameState, invalidMove) shouldBe MoveMistake.OUT_OF_BOUNDS
+                GameRuleLogic.isValidSetMove(gameState, invalidMove) shouldBe false
+            }
+        }
         "it's the first turn" should {
             "throw if they skip" {
                 shouldThrow<InvalidMoveException> {
@@ -57,6 +75,13 @@ class GameRuleLogicTest: WordSpec({
                     }
                 }
             }
+            "report the mistakes without throwing" {
+                GameRuleLogic.checkSetMove(gameState, SetMove(Piece(Color.BLUE, PieceShape.PENTO_S))) shouldBe MoveMistake.WRONG_SHAPE
+                GameRuleLogic.checkSetMove(gameState, SetMove(Piece(Color.BLUE, PieceShape.PENTO_U, position = Coordinates(10, 10)))) shouldBe MoveMistake.NOT_IN_CORNER
+                GameRuleLogic.checkSetMove(gameState, SetMove(Piece(Color.RED, PieceShape.PENTO_U))) shouldBe MoveMistake.WRONG_COLOR
+                GameRuleLogic.checkSetMove(gameState, SetMove(Piece(Color.BLUE, PieceShape.PENTO_U))) shouldBe null
+                GameRuleLogic.isValidSetMove(gameState, SetMove(Piece(Color.BLUE, PieceShape.PENTO_U))) shouldBe true
+            }
             "succeed otherwise" {
                 for (piece in listOf(
                         Piece(Color.BLUE, PieceShape.PENTO_U, position = Coordinates(Constants.BOARD_SIZE - 3, 0)),
@@ -71,6 +96,92 @@ class GameRuleLogicTest: WordSpec({
             }
         }
     }
+    "Moves performed with an UndoStack" When {
+        val gameState = GameState(startPiece = PieceShape.PENTO_W)
+        val history = UndoStack(1)
+        val states = ArrayList<GameState>()
+        while (gameState.round <= 8 && gameState.hasValidColors()) {
+            states.add(gameState.clone())
+            val move = GameRuleLogic.getPossibleMoves(gameState).minByOrNull { it.toString() } ?: SkipMove(gameState.currentColor)
+            GameRuleLogic.performMove(gameState, move, history)
+            GameRuleLogic.removeInvalidColors(gameState)
+        }
+        "undone" should {
+            "restore every previous state" {
+                history.size shouldBe states.size
+                states.asReversed().forEach { state ->
+                    GameRuleLogic.undoMove(gameState, history)
+                    gameState shouldBe state
+                    gameState.longString() shouldBe state.longString()
+                    testXStream.toXML(gameState) shouldBe testXStream.toXML(state)
+                    Color.values().forEach {
+                        GameRuleLogic.getValidFields(gameState, it) shouldBe GameRuleLogic.getValidFields(state.board, it)
+                    }
+                }
+                history.isEmpty() shouldBe true
+            }
+            "restore removed colors" {
+                val before = gameState.clone()
+                GameRuleLogic.performMove(gameState, SkipMove(gameState.currentColor), history)
+                gameState.removeActiveColor()
+                GameRuleLogic.undoMove(gameState, history)
+                gameState shouldBe before
+            }
+            "fail if there is nothing to undo" {
+                history.clear()
+                shouldThrow<IllegalStateException> {
+                    GameRuleLogic.undoMove(gameState, history)
+                }
+            }
+        }
+        "invalid" should {
+            "not be recorded" {
+                val size = history.size
+                shouldThrow<InvalidMoveException> {
+                    GameRuleLogic.performMove(gameState, SetMove(Piece(gameState.currentColor, PieceShape.MONO, position = Coordinates(-1, 0))), history)
+                }
+                history.size shouldBe size
+            }
+        }
+    }
+    "Moves performed as PackedMoves" When {
+        val gameState = GameState(startPiece = PieceShape.PENTO_W)
+        val reference = gameState.clone()
+        val history = UndoStack()
+        val states = ArrayList<GameState>()
+        val moves = MoveList()
+        while (gameState.hasValidColors() && gameState.round <= Constants.ROUND_LIMIT) {
+            states.add(gameState.clone())
+            moves.clear()
+            GameRuleLogic.collectPossibleMoves(gameState, moves)
+            val packed = moves.toIntArray().minOrNull()!!
+            GameRuleLogic.performPackedMove(gameState, packed, history)
+            GameRuleLogic.removeInvalidColors(gameState)
+            GameRuleLogic.performMove(reference, PackedMove.decode(packed))
+            GameRuleLogic.removeInvalidColors(reference)
+        }
+        "played to the end" should {
+            "match the moves performed as objects" {
+                gameState.board shouldBe reference.board
+                gameState.zobristKey shouldBe reference.zobristKey
+                Team.values().forEach {
+                    gameState.getPointsForPlayer(it) shouldBe reference.getPointsForPlayer(it)
+                }
+            }
+            "leave the last move untouched" {
+                gameState.lastMove shouldBe null
+            }
+        }
+        "undone" should {
+            "restore every previous state" {
+                states.asReversed().forEach { state ->
+                    GameRuleLogic.undoMove(gameState, history)
+                    gameState shouldBe state
+                }
+                history.isEmpty() shouldBe true
+            }
+        }
+    }
     "Score calculation" When {
         "the player placed all pieces" should {
             "return the max score (109) if MONO was last" {
@@ -154,4 +265,59 @@ class GameRuleLogicTest: WordSpec({
                     GameRuleLogic.getPossibleMoves(state).filter { GameRuleLogic.isValidSetMove(state, it) }
         }
     }
+    "Possible move calculation" should {
+        val state = GameState(startPiece = PieceShape.PENTO_V)
+        while (state.round <= 6) {
+            GameRuleLogic.performMove(state, GameRuleLogic.getPossibleMoves(state).minByOrNull { it.toString() }!!)
+        }
+        "return every move exactly once" {
+            val moves = GameRuleLogic.getPossibleMoves(state)
+            moves.size shouldBe moves.toSet().size
+            moves.forEach { GameRuleLogic.isValidSetMove(state, it) shouldBe true }
+            PieceShape.values().sumBy { GameRuleLogic.getPossibleMovesForShape(state, it).size } shouldBe moves.size
+        }
+        "return the moves covering any of the given fields" {
+            val moves = GameRuleLogic.getPossibleMoves(state)
+            val anchors = GameRuleLogic.getValidFields(state.board, state.currentColor)
+            val index = { field: Coordinates -> field.y * Constants.BOARD_SIZE + field.x }
+            // pair the last anchor of each move with a covered non-anchor field of lower index
+            val pairs = moves.mapNotNull { move ->
+                val covered = move.piece.coordinates
+                val anchor = covered.filter { it in anchors }.maxByOrNull(index)!!
+                covered.filter { it !in anchors && index(it) < index(anchor) }.minByOrNull(index)
+                        ?.let { Triple(move.piece.kind, anchor, it) }
+            }.toSet()
+            pairs.size shouldBeGreaterThan 0
+            pairs.forEach { (shape, anchor, field) ->
+                val fields = setOf(anchor, field)
+                GameRuleLogic.streamPossibleMovesForShape(state, shape, fields).toList() shouldContainExactlyInAnyOrder
+                        moves.filter { it.piece.kind == shape && it.piece.coordinates.any { covered -> covered in fields } }
+            }
+            val board = (0 until Constants.BOARD_SIZE).flatMap { x -> (0 until Constants.BOARD_SIZE).map { y -> Coordinates(x, y) } }.toSet()
+            PieceShape.values().forEach { shape ->
+                GameRuleLogic.streamPossibleMovesForShape(state, shape, board).toList() shouldContainExactlyInAnyOrder
+                        GameRuleLogic.getPossibleMovesForShape(state, shape)
+            }
+        }
+        "count the moves of every color" {
+            Color.values().forEach { color ->
+                val list = MoveList()
+                GameRuleLogic.collectPossibleMoves(state, list, color)
+                GameRuleLogic.countPossibleMoves(state, color) shouldBe list.size
+                GameRuleLogic.hasAnyValidMove(state, color) shouldBe !list.isEmpty()
+                list.toMoves().forEach { it.color shouldBe color }
+            }
+            GameRuleLogic.countPossibleMoves(state) shouldBe GameRuleLogic.getPossibleMoves(state).size
+        }
+        "report no moves for a color without pieces" {
+            (state.undeployedPieceShapes(Color.RED) as MutableCollection).clear()
+            GameRuleLogic.countPossibleMoves(state, Color.RED) shouldBe 0
+            GameRuleLogic.hasAnyValidMove(state, Color.RED) shouldBe false
+        }
+        "collect the same moves in a MoveList" {
+            val list = MoveList()
+            GameRuleLogic.collectPossibleMoves(state, list)
+            list.toMoves() shouldContainExactlyInAnyOrder GameRuleLogic.getPossibleMoves(state)
+        }
+    }
 })
@@ -3,6 +3,8 @@ package sc.plugin2021
 import io.kotest.assertions.throwables.shouldNotThrow
 import io.kotest.assertions.throwables.shouldThrow
 import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.collections.shouldNotContain
+import io.kotest.matchers.ints.shouldBeGreaterThan
 import io.kotest.matchers.should
 import io.kotest.matchers.shouldBe
 import io.kotest.matchers.shouldNotBe
@@ -12,6 +14,7 @@ import sc.helpers.testXStream
 import sc.plugin2021.util.Constants
 import sc.plugin2021.util.GameRuleLogic
 import sc.plugin2021.util.MoveMistake
+import sc.plugin2021.util.UndoStack
 import sc.shared.InvalidMoveException
 
 class GameStateTest: WordSpec({
@@ -31,6 +34,19 @@ class GameStateTest: WordSpec({
                 state.getPointsForPlayer(Team.TWO) shouldBe 0
             }
         }
+        "constructed with a seed" should {
+            "always choose the same start piece for the same seed" {
+                (0L..20L).forEach { seed ->
+                    GameState(seed).startPiece shouldBe GameState(seed).startPiece
+                }
+            }
+            "choose a valid start piece depending on the seed" {
+                val startPieces = (0L..20L).map { GameState(it).startPiece }.toSet()
+                startPieces.size shouldBeGreaterThan 1
+                startPieces shouldNotContain PieceShape.PENTO_X
+                startPieces.forEach { it.size shouldBe 5 }
+            }
+        }
         "turn number increases" should {
             "advance turn, round and currentcolor accordingly" {
                 GameState().run {
@@ -100,6 +116,66 @@ class GameStateTest: WordSpec({
                 testXStream.toXML(state) shouldContain Regex("lastMove.*SkipMove")
             }
         }
+        "pieces are placed" should {
+            GameRuleLogic.performMove(state, SetMove(Piece(Color.BLUE, state.startPiece, position = Coordinates(0, 0))))
+            GameRuleLogic.performMove(state, SetMove(Piece(Color.YELLOW, state.startPiece, position = Coordinates(19, 0))))
+            GameRuleLogic.performMove(state, SetMove(Piece(Color.RED, state.startPiece, position = Coordinates(19, 15))))
+            GameRuleLogic.performMove(state, SetMove(Piece(Color.GREEN, state.startPiece, position = Coordinates(0, 15))))
+            GameRuleLogic.performMove(state, GameRuleLogic.getPossibleMoves(state).first())
+            "track the anchors of every color" {
+                Color.values().forEach {
+                    GameRuleLogic.getValidFields(state, it) shouldBe GameRuleLogic.getValidFields(state.board, it)
+                }
+            }
+            "keep the anchors when cloned" {
+                val cloned = state.clone()
+                Color.values().forEach {
+                    GameRuleLogic.getValidFields(cloned, it) shouldBe GameRuleLogic.getValidFields(state, it)
+                }
+            }
+            "recalculate the anchors when the board is modified" {
+                val anchor = GameRuleLogic.getValidFields(state, Color.YELLOW).first()
+                state.board[anchor] = +Color.GREEN
+                GameRuleLogic.getValidFields(state, Color.YELLOW) shouldNotContain anchor
+            }
+        }
+        "hashed with Zobrist keys" should {
+            val blue = SetMove(Piece(Color.BLUE, state.startPiece, position = Coordinates(0, 0)))
+            val yellow = SetMove(Piece(Color.YELLOW, state.startPiece, position = Coordinates(19, 0)))
+            "match the key of an equal state" {
+                val other = GameState(startPiece = state.startPiece)
+                other.zobristKey shouldBe state.zobristKey
+                state.clone().zobristKey shouldBe state.zobristKey
+            }
+            "change with every move" {
+                val initial = state.zobristKey
+                GameRuleLogic.performMove(state, blue)
+                state.zobristKey shouldNotBe initial
+            }
+            "detect transpositions" {
+                val other = GameState(startPiece = state.startPiece)
+                other.board[0, 0] = FieldContent.GREEN
+                other.board[0, 0] = FieldContent.EMPTY
+                blue.piece.coordinates.forEach { other.board[it] = FieldContent.BLUE }
+                GameRuleLogic.performMove(state, blue)
+                other.removeUndeployedPiece(blue.piece)
+                other.advance()
+                other.zobristKey shouldBe state.zobristKey
+            }
+            "be restored by undoing moves" {
+                val history = UndoStack()
+                val initial = state.zobristKey
+                GameRuleLogic.performMove(state, blue, history)
+                GameRuleLogic.performMove(state, yellow, history)
+                GameRuleLogic.undoMove(state, history)
+                GameRuleLogic.undoMove(state, history)
+                state.zobristKey shouldBe initial
+            }
+            "survive serialisation" {
+                GameRuleLogic.performMove(state, blue)
+                (testXStream.fromXML(testXStream.toXML(state)) as GameState).zobristKey shouldBe state.zobristKey
+            }
+        }
         "serialised and deserialised" should {
             val xStream = testXStream
             val transformed = xStream.fromXML(xStream.toXML(GameState(startPiece = state.startPiece))) as GameState
@@ -0,0 +1,82 @@
+package sc.plugin2021
+
+import io.kotest.assertions.throwables.shouldThrow
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.shouldBe
+import sc.plugin2021.util.Constants
+import sc.plugin2021.util.MoveList
+import sc.plugin2021.util.PackedMove
+import sc.plugin2021.util.PlacementTable
+
+class PackedMoveTest: WordSpec({
+    "PackedMoves" When {
+        "encoding a SetMove" should {
+            "decode to the same variant at the same position" {
+                Color.values().forEach { color ->
+                    PieceShape.values().forEach { shape ->
+                        shape.transformations.keys.forEach { (rotation, isFlipped) ->
+                            val piece = Piece(color, shape, rotation, isFlipped, Coordinates(Constants.BOARD_SIZE - 5, 3))
+                            val decoded = PackedMove.decode(PackedMove.encode(SetMove(piece))) as SetMove
+                            decoded.piece.color shouldBe color
+                            decoded.piece.coordinates shouldBe piece.coordinates
+                        }
+                    }
+                }
+            }
+            "expose the components and the placement" {
+                val piece = Piece(Color.GREEN, PieceShape.PENTO_W, Rotation.LEFT, true, Coordinates(4, 17))
+                val packed = PackedMove.encode(SetMove(piece))
+                PackedMove.isSkip(packed) shouldBe false
+                PackedMove.color(packed) shouldBe Color.GREEN
+                PackedMove.shape(packed) shouldBe PieceShape.PENTO_W
+                PackedMove.x(packed) shouldBe 4
+                PackedMove.y(packed) shouldBe 17
+                PackedMove.placement(packed) shouldBe PlacementTable.placement(piece)
+            }
+            "reject pieces outside of the board" {
+                shouldThrow<IllegalArgumentException> {
+                    PackedMove.encode(SetMove(Piece(Color.RED, PieceShape.MONO, position = Coordinates(-1, 0))))
+                }
+            }
+        }
+        "encoding a SkipMove" should {
+            "keep the color" {
+                Color.values().forEach {
+                    val packed = PackedMove.encode(SkipMove(it))
+                    PackedMove.isSkip(packed) shouldBe true
+                    PackedMove.decode(packed) shouldBe SkipMove(it)
+                }
+            }
+        }
+    }
+    "MoveLists" When {
+        val list = MoveList(2)
+        val moves = listOf(
+                SkipMove(Color.BLUE),
+                SetMove(Piece(Color.BLUE, PieceShape.MONO)),
+                SetMove(Piece(Color.YELLOW, PieceShape.PENTO_I, position = Coordinates(3, 3))))
+        moves.forEach { list.add(it) }
+        "moves are added" should {
+            "grow beyond their capacity" {
+                list.size shouldBe 3
+                list.toMoves() shouldBe moves
+            }
+            "swap moves" {
+                list.swap(0, 2)
+                list[0] shouldBe PackedMove.encode(moves[2])
+                list[2] shouldBe PackedMove.encode(moves[0])
+            }
+            "reject indices beyond the size" {
+                shouldThrow<IndexOutOfBoundsException> { list[3] }
+            }
+        }
+        "cleared" should {
+            "be empty and reusable" {
+                list.clear()
+                list.isEmpty() shouldBe true
+                list.add(moves[1])
+                list.toMoves() shouldBe listOf(moves[1])
+            }
+        }
+    }
+})
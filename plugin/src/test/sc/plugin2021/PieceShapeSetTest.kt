@@ -0,0 +1,43 @@
+package sc.plugin2021
+
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.collections.shouldContainExactly
+import io.kotest.matchers.shouldBe
+
+class PieceShapeSetTest: WordSpec({
+    "PieceShapeSets" When {
+        val shapes = PieceShapeSet(listOf(PieceShape.PENTO_Y, PieceShape.MONO, PieceShape.TETRO_L))
+        "created from a collection" should {
+            "iterate in the order of PieceShape" {
+                shapes shouldContainExactly listOf(PieceShape.MONO, PieceShape.TETRO_L, PieceShape.PENTO_Y)
+            }
+            "store the shapes as a bitmask" {
+                shapes.mask shouldBe (1 or (1 shl 7) or (1 shl 20))
+                shapes.size shouldBe 3
+            }
+            "equal other sets with the same shapes" {
+                shapes shouldBe linkedSetOf(PieceShape.TETRO_L, PieceShape.PENTO_Y, PieceShape.MONO)
+                linkedSetOf(PieceShape.TETRO_L, PieceShape.PENTO_Y, PieceShape.MONO) shouldBe shapes
+                shapes.hashCode() shouldBe setOf(PieceShape.TETRO_L, PieceShape.PENTO_Y, PieceShape.MONO).hashCode()
+            }
+        }
+        "modified" should {
+            "report whether it changed" {
+                shapes.add(PieceShape.MONO) shouldBe false
+                shapes.remove(PieceShape.MONO) shouldBe true
+                shapes.remove(PieceShape.MONO) shouldBe false
+                shapes.add(PieceShape.DOMINO) shouldBe true
+                shapes shouldContainExactly listOf(PieceShape.DOMINO, PieceShape.TETRO_L, PieceShape.PENTO_Y)
+            }
+            "support removal through the iterator" {
+                shapes.removeIf { it.size == 5 }
+                shapes shouldContainExactly listOf(PieceShape.MONO, PieceShape.TETRO_L)
+            }
+            "be empty when cleared" {
+                shapes.clear()
+                shapes.isEmpty() shouldBe true
+                shapes.mask shouldBe 0
+            }
+        }
+    }
+})
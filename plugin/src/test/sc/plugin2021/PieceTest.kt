@@ -8,6 +8,7 @@ import io.kotest.matchers.maps.shouldContain
 import io.kotest.matchers.maps.shouldContainExactly
 import io.kotest.matchers.shouldBe
 import io.kotest.matchers.shouldNotBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
 import sc.helpers.shouldSerializeTo
 import sc.plugin2021.util.align
 import sc.plugin2021.util.flip
@@ -40,6 +41,22 @@ class PieceTest: WordSpec({
                 piece.shape shouldBe PieceShape.TRIO_L.coordinates.flip()
                 piece.coordinates shouldBe coordinates
             }
+            "share its coordinates with equal pieces" {
+                piece.copy(color = Color.BLUE).coordinates shouldBeSameInstanceAs piece.coordinates
+            }
+            "have the hash code of its coordinates" {
+                piece.hashCode() shouldBe 31 * Color.RED.hashCode() + coordinates.hashCode()
+                PieceShape.values().forEach { shape ->
+                    Rotation.values().forEach { rotation ->
+                        listOf(false, true).forEach { isFlipped ->
+                            listOf(Coordinates(0, 0), Coordinates(7, 13), Coordinates(-2, 19)).forEach { position ->
+                                val other = Piece(Color.GREEN, shape, rotation, isFlipped, position)
+                                other.hashCode() shouldBe 31 * Color.GREEN.hashCode() + other.coordinates.toSet().hashCode()
+                            }
+                        }
+                    }
+                }
+            }
         }
         "converted to String" should {
             "consider all properties" {
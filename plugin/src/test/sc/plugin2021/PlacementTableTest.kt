@@ -0,0 +1,67 @@
+package sc.plugin2021
+
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.shouldNotBe
+import sc.plugin2021.util.BitBoard
+import sc.plugin2021.util.Constants
+import sc.plugin2021.util.PlacementTable
+
+class PlacementTableTest: WordSpec({
+    fun Set<Coordinates>.toMask() = LongArray(BitBoard.WORDS).also { mask ->
+        filter { Board.contains(it) }.forEach {
+            val index = BitBoard.index(it.x, it.y)
+            mask[BitBoard.word(index)] = mask[BitBoard.word(index)] or BitBoard.bit(index)
+        }
+    }
+    fun window(placement: Int, getter: (Int, Int) -> Long) = LongArray(BitBoard.WORDS).also { mask ->
+        val first = PlacementTable.firstWord(placement)
+        for (word in 0 until PlacementTable.WINDOW)
+            mask[first + word] = getter(placement, word)
+    }
+
+    "The PlacementTable" When {
+        "asked for variants" should {
+            "list them in the order of PieceShape.variants" {
+                PieceShape.values().forEach { shape ->
+                    PlacementTable.variantCount(shape) shouldBe shape.variants.size
+                    shape.variants.keys.forEachIndexed { index, variant ->
+                        PlacementTable.variant(shape, index) shouldBe variant
+                        val (rotation, flip) = shape.variants.getValue(variant)
+                        PlacementTable.variantIndex(shape, rotation, flip) shouldBe index
+                    }
+                }
+            }
+            "contain 91 variants in total" {
+                PieceShape.values().sumBy { PlacementTable.variantCount(it) } shouldBe 91
+            }
+        }
+        "asked for a placement" should {
+            val piece = Piece(Color.RED, PieceShape.PENTO_W, Rotation.RIGHT, true, Coordinates(7, 12))
+            val placement = PlacementTable.placement(piece)
+            "mark the occupied fields" {
+                window(placement, PlacementTable::occupied) shouldBe piece.coordinates.toMask()
+            }
+            "mark the cardinal neighbours" {
+                val edges = piece.coordinates.flatMap { it.neighbors }.toSet() - piece.coordinates
+                window(placement, PlacementTable::edges) shouldBe edges.toMask()
+            }
+            "mark the fields only touching a corner" {
+                val corners = piece.coordinates.flatMap { it.corners }.toSet() - piece.coordinates -
+                              piece.coordinates.flatMap { it.neighbors }
+                window(placement, PlacementTable::corners) shouldBe corners.toMask()
+            }
+            "clip the masks at the border of the board" {
+                val corner = Piece(Color.RED, PieceShape.TETRO_O, position = Coordinates(Constants.BOARD_SIZE - 2, Constants.BOARD_SIZE - 2))
+                window(PlacementTable.placement(corner), PlacementTable::corners) shouldBe
+                        setOf(Coordinates(Constants.BOARD_SIZE - 3, Constants.BOARD_SIZE - 3)).toMask()
+            }
+            "return -1 if the piece does not fit on the board" {
+                PlacementTable.placement(piece.copy(position = Coordinates(-1, 0))) shouldBe -1
+                PlacementTable.placement(piece.copy(position = Coordinates(Constants.BOARD_SIZE - 2, 0))) shouldBe -1
+                PlacementTable.placement(piece.copy(position = Coordinates(0, Constants.BOARD_SIZE - 2))) shouldBe -1
+                PlacementTable.placement(piece.copy(position = Coordinates(Constants.BOARD_SIZE - 3, 0))) shouldNotBe -1
+            }
+        }
+    }
+})
@@ -0,0 +1,50 @@
+package sc.plugin2021
+
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.longs.shouldBeInRange
+import io.kotest.matchers.shouldBe
+import sc.networking.clients.RoundTripEstimator
+import sc.plugin2021.util.Constants
+import java.util.concurrent.TimeUnit
+
+class TimeManagerTest: WordSpec({
+    "TimeManager" When {
+        "no round trip has been measured" should {
+            val timeManager = TimeManager(RoundTripEstimator())
+            "assume the default latency" {
+                timeManager.latency shouldBe TimeManager.DEFAULT_LATENCY
+                timeManager.budget shouldBe Constants.SOFT_TIMEOUT - TimeManager.DEFAULT_LATENCY - TimeManager.RESERVE
+            }
+        }
+        "round trips have been measured" should {
+            val roundTrip = RoundTripEstimator()
+            roundTrip.add(TimeUnit.MILLISECONDS.toNanos(10))
+            val timeManager = TimeManager(roundTrip)
+            "subtract the smoothed round trip plus four deviations" {
+                timeManager.latency shouldBe 30
+                timeManager.budget shouldBe Constants.SOFT_TIMEOUT - 30 - TimeManager.RESERVE
+            }
+            "never report a negative budget" {
+                TimeManager(roundTrip, timeout = 100).budget shouldBe 0
+            }
+            "count down from the move request" {
+                timeManager.startMove(42)
+                timeManager.deadline shouldBe 42 + TimeUnit.MILLISECONDS.toNanos(timeManager.budget)
+                timeManager.startMove()
+                timeManager.remaining() shouldBeInRange timeManager.budget - 100..timeManager.budget
+            }
+            "count from the received state, however long it took to handle" {
+                val received = System.nanoTime()
+                timeManager.stateReceived(received)
+                Thread.sleep(50)
+                timeManager.startMove()
+                timeManager.deadline shouldBe received + TimeUnit.MILLISECONDS.toNanos(timeManager.budget)
+                timeManager.remaining() shouldBeInRange 0..timeManager.budget - 50
+            }
+            "count from the request again for the next move" {
+                timeManager.startMove(42)
+                timeManager.moveStart shouldBe 42
+            }
+        }
+    }
+})
@@ -0,0 +1,96 @@
+package sc.plugin2021.arena
+
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.collections.shouldHaveSize
+import io.kotest.matchers.ints.shouldBeGreaterThan
+import io.kotest.matchers.shouldBe
+import sc.framework.plugins.Player
+import sc.plugin2021.*
+import sc.plugin2021.util.GameRuleLogic
+import sc.shared.GameResult
+import sc.shared.ScoreCause
+import java.util.function.Consumer
+import kotlin.random.Random
+
+/** Plays the first possible move, or the one chosen by [choose]. */
+private open class TestHandler(
+        private val sendMove: Consumer<Move>,
+        private val choose: (List<Move>) -> Move = { it.first() }
+): IGameHandler {
+    lateinit var state: GameState
+    var result: GameResult? = null
+
+    override fun onUpdate(player: Player, otherPlayer: Player) {}
+    override fun onUpdate(gamestate: GameState) {
+        state = gamestate
+    }
+    override fun onRequestAction() = sendAction(choose(GameRuleLogic.streamPossibleMoves(state).toList()))
+    override fun sendAction(move: Move) = sendMove.accept(move)
+    override fun gameEnded(data: GameResult, team: Team?, errorMessage: String?) {
+        result = data
+    }
+}
+
+class ArenaTest: WordSpec({
+    val random = Arena.Contestant("random") { sink ->
+        val random = Random(1)
+        TestHandler(sink) { it.random(random) }
+    }
+    val first = Arena.Contestant("first") { sink -> TestHandler(sink) }
+    "An Arena" When {
+        "playing regular games" should {
+            val result = Arena(random, first).play(6, 3, 42)
+            "play all games to the end" {
+                result.games shouldHaveSize 6
+                result.games.map { it.index }.sorted() shouldBe (0 until 6).toList()
+                result.games.forEach {
+                    it.first.isRegular shouldBe true
+                    it.second.isRegular shouldBe true
+                    it.first.moves shouldBeGreaterThan 0
+                }
+                result.first.wins + result.first.draws + result.first.losses shouldBe 6
+                result.first.wins shouldBe result.second.losses
+            }
+            "swap the teams after every game" {
+                result.games.forEach {
+                    it.first.team shouldBe if (it.index % 2 == 0) Team.ONE else Team.TWO
+                    it.second.team shouldBe it.first.team.opponent()
+                }
+            }
+            "be reproducible with a seed" {
+                val arena = Arena(first, first)
+                arena.playGame(0, 7).result shouldBe arena.playGame(0, 7).result
+            }
+        }
+        "a handler exceeds the time budget" should {
+            val slow = Arena.Contestant("slow") { sink ->
+                object: TestHandler(sink) {
+                    override fun onRequestAction() {
+                        Thread.sleep(50)
+                        super.onRequestAction()
+                    }
+                }
+            }
+            "lose by soft timeout" {
+                val game = Arena(slow, first, softTimeout = 20).playGame(0)
+                game.first.score.cause shouldBe ScoreCause.SOFT_TIMEOUT
+                game.first.isLoss shouldBe true
+                game.second.isWin shouldBe true
+            }
+        }
+        "a handler sends an invalid move" should {
+            val cheater = Arena.Contestant("cheater") { sink ->
+                TestHandler(sink) { SetMove(Piece(Color.RED, PieceShape.MONO)) }
+            }
+            "lose by rule violation and report it to the handler" {
+                val handlers = mutableListOf<TestHandler>()
+                val game = Arena(first, Arena.Contestant("cheater") { sink ->
+                    cheater.handlerFactory.create(sink).also { handlers.add(it as TestHandler) }
+                }).playGame(1)
+                game.second.score.cause shouldBe ScoreCause.RULE_VIOLATION
+                game.first.isWin shouldBe true
+                handlers.single().result shouldBe game.result
+            }
+        }
+    }
+})
@@ -0,0 +1,59 @@
+package sc.plugin2021.benchmark
+
+import sc.plugin2021.GameState
+import sc.plugin2021.helper.GamePhase
+import sc.plugin2021.util.Constants
+import sc.plugin2021.util.GameRuleLogic
+import sc.plugin2021.util.UndoStack
+
+/**
+ * Zählt die Blätter des Spielbaums bis zu einer festen Tiefe ("perft"), um die Zuggenerierung
+ * auf Korrektheit und Geschwindigkeit zu prüfen.
+ *
+ * Jeder Knoten ist ein Spielstand, wie ihn der Server nach einem Zug hinterlässt,
+ * also nach [GameRuleLogic.performMove] und [GameRuleLogic.removeInvalidColors].
+ * Gezählt werden nur [sc.plugin2021.SetMove]s aus [GameRuleLogic.streamPossibleMoves],
+ * da ein Aussetzen nach der ersten Runde immer möglich ist und den Baum nur vervielfacht.
+ * Ein beendetes Spiel ist ein Blatt.
+ */
+object Perft {
+    /** Eine [GamePhase] zusammen mit der erwarteten Anzahl an Blättern bis zur Tiefe [depth]. */
+    data class Position(val phase: GamePhase, val depth: Int, val nodes: Long) {
+        val name = phase.name.toLowerCase()
+        fun createState() = phase.createState()
+    }
+
+    /** Die Stellungen für den Benchmark, je Spielphase eine, mit Tiefen für einige Sekunden Laufzeit. */
+    val positions = listOf(
+            Position(GamePhase.START, 5, 5298048),
+            Position(GamePhase.EARLY, 2, 69741),
+            Position(GamePhase.MIDDLE, 2, 96298),
+            Position(GamePhase.LATE, 3, 316037),
+    )
+
+    /** Flache Varianten der [positions] für die Regressionstests. */
+    val shallowPositions = listOf(
+            Position(GamePhase.START, 3, 5184),
+            Position(GamePhase.EARLY, 1, 243),
+            Position(GamePhase.MIDDLE, 1, 326),
+            Position(GamePhase.LATE, 2, 2127),
+    )
+
+    /** @return die Anzahl an Blättern des Spielbaums unter [state] bis zur gegebenen Tiefe. */
+    fun perft(state: GameState, depth: Int, history: UndoStack = UndoStack()): Long {
+        if (depth == 0 || isOver(state))
+            return 1
+        var nodes = 0L
+        // The sequence reads the state lazily, so it has to be collected before moves are performed
+        for (move in GameRuleLogic.streamPossibleMoves(state).toList()) {
+            GameRuleLogic.performMove(state, move, history)
+            GameRuleLogic.removeInvalidColors(state)
+            nodes += perft(state, depth - 1, history)
+            GameRuleLogic.undoMove(state, history)
+        }
+        return nodes
+    }
+
+    private fun isOver(state: GameState) =
+            !state.hasValidColors() || state.round > Constants.ROUND_LIMIT
+}
@@ -0,0 +1,37 @@
+@file:JvmName("PerftBenchmark")
+package sc.plugin2021.benchmark
+
+import kotlin.system.exitProcess
+
+/**
+ * Führt [Perft] für alle [Perft.positions] aus, vergleicht die Anzahl an Blättern mit den erwarteten Werten
+ * und gibt den Durchsatz in Knoten pro Sekunde aus.
+ * Jede Stellung wird mehrmals durchsucht und der schnellste Durchlauf berichtet.
+ *
+ * Aufruf: `gradle :plugin:perft [-Piterations=N]`
+ */
+fun main(args: Array<String>) {
+    val iterations = args.firstOrNull()?.toInt() ?: 3
+
+    // Warm up the JIT on the shallow positions
+    Perft.shallowPositions.forEach { Perft.perft(it.createState(), it.depth) }
+
+    var failed = false
+    for (position in Perft.positions) {
+        val state = position.createState()
+        var nodes = 0L
+        var best = Long.MAX_VALUE
+        repeat(iterations) {
+            val start = System.nanoTime()
+            nodes = Perft.perft(state, position.depth)
+            best = minOf(best, System.nanoTime() - start)
+        }
+        val correct = nodes == position.nodes
+        failed = failed || !correct
+        println("%-8s depth %d %10d nodes %8.1f ms %10.0f nodes/s%s".format(
+                position.name, position.depth, nodes, best / 1e6, nodes * 1e9 / best,
+                if (correct) "" else "  expected ${position.nodes}"))
+    }
+    if (failed)
+        exitProcess(1)
+}
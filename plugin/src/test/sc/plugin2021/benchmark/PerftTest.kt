@@ -0,0 +1,21 @@
+package sc.plugin2021.benchmark
+
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.shouldBe
+
+class PerftTest: WordSpec({
+    "Perft" When {
+        Perft.shallowPositions.forEach { position ->
+            "searching the ${position.name} position" should {
+                "find the reference number of leaves at depth ${position.depth}" {
+                    Perft.perft(position.createState(), position.depth) shouldBe position.nodes
+                }
+                "leave the state unchanged" {
+                    val state = position.createState()
+                    Perft.perft(state, position.depth)
+                    state shouldBe position.createState()
+                }
+            }
+        }
+    }
+})
@@ -0,0 +1,64 @@
+@file:JvmName("TurnBenchmark")
+package sc.plugin2021.benchmark
+
+import sc.plugin2021.GameState
+import sc.plugin2021.PieceShape
+import sc.plugin2021.SkipMove
+import sc.plugin2021.util.GameRuleLogic
+import kotlin.random.Random
+
+/**
+ * Misst die Dauer eines Serverzugs, also [GameRuleLogic.performMove] gefolgt von [GameRuleLogic.removeInvalidColors],
+ * wie er in `Game.onRoundBasedAction` ausgeführt wird.
+ * Verglichen wird die frühere Prüfung über die Sequenz aller Züge mit der aktuellen Existenzprüfung.
+ *
+ * Aufruf: `gradle :plugin:benchmarkTurn [-Pgames=N]`
+ */
+fun main(args: Array<String>) {
+    val games = args.firstOrNull()?.toInt() ?: 20
+    val checks = listOf(
+            "sequence" to ::removeInvalidColorsBySequence,
+            "hasAnyValidMove" to GameRuleLogic::removeInvalidColors)
+
+    // Warm up the JIT with a few games of each variant
+    checks.forEach { (_, check) -> repeat(3) { playGame(1000L + it, check) } }
+
+    checks.forEach { (name, check) ->
+        val result = (0 until games).map { playGame(it.toLong(), check) }.reduce(TurnTimes::plus)
+        println("%-16s %6d turns, %8.1f us/turn, %8.1f us/turn from round 15".format(
+                name, result.turns, result.nanos / 1000.0 / result.turns, result.lateNanos / 1000.0 / result.lateTurns))
+    }
+}
+
+/** Die summierten Dauern aller Serverzüge, gesamt und ab der 15. Runde. */
+data class TurnTimes(val turns: Int, val nanos: Long, val lateTurns: Int, val lateNanos: Long) {
+    operator fun plus(other: TurnTimes) =
+            TurnTimes(turns + other.turns, nanos + other.nanos, lateTurns + other.lateTurns, lateNanos + other.lateNanos)
+}
+
+/** Spielt ein zufälliges Spiel und misst jeden Serverzug. Die Züge hängen nur von [seed] ab. */
+fun playGame(seed: Long, removeInvalidColors: (GameState) -> Unit): TurnTimes {
+    val random = Random(seed)
+    val state = GameState(startPiece = PieceShape.values().filter { it.size == 5 && it != PieceShape.PENTO_X }.random(random))
+    var times = TurnTimes(0, 0, 0, 0)
+    while (state.hasValidColors()) {
+        val moves = GameRuleLogic.getPossibleMoves(state)
+        val move = if (moves.isEmpty()) SkipMove(state.currentColor) else moves.random(random)
+        val round = state.round
+        val start = System.nanoTime()
+        GameRuleLogic.performMove(state, move)
+        removeInvalidColors(state)
+        val duration = System.nanoTime() - start
+        times += if (round >= 15) TurnTimes(1, duration, 1, duration) else TurnTimes(1, duration, 0, 0)
+    }
+    return times
+}
+
+/** Die frühere Implementierung von [GameRuleLogic.removeInvalidColors], die jeden erzeugten Zug erneut prüft. */
+fun removeInvalidColorsBySequence(gameState: GameState) {
+    if (!gameState.hasValidColors()) return
+    if (GameRuleLogic.streamPossibleMoves(gameState).none { GameRuleLogic.isValidSetMove(gameState, it) }) {
+        gameState.removeActiveColor()
+        removeInvalidColorsBySequence(gameState)
+    }
+}
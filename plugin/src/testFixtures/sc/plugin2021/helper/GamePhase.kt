@@ -0,0 +1,42 @@
+package sc.plugin2021.helper
+
+import sc.plugin2021.GameState
+import sc.plugin2021.PieceShape
+import sc.plugin2021.util.Constants
+import sc.plugin2021.util.GameRuleLogic
+import sc.plugin2021.util.MoveList
+import sc.plugin2021.util.PackedMove
+import kotlin.random.Random
+
+/**
+ * Fixed positions from different phases of a game, so that results are comparable between runs.
+ * Each is reached by playing [moves] random moves from a seeded [Random], always with [startPiece].
+ * Shared by the perft tests of the plugin and the benchmarks.
+ */
+enum class GamePhase(val seed: Long, val moves: Int) {
+    START(0, 0),
+    EARLY(1, 8),
+    MIDDLE(2, 24),
+    LATE(4, 40);
+    
+    /** @return a new [GameState] of this phase. */
+    fun createState(): GameState {
+        val random = Random(seed)
+        val state = GameState(startPiece = startPiece)
+        val possibleMoves = MoveList()
+        repeat(moves) {
+            check(state.hasValidColors() && state.round <= Constants.ROUND_LIMIT) { "Game ended before reaching $this" }
+            possibleMoves.clear()
+            GameRuleLogic.collectPossibleMoves(state, possibleMoves)
+            // Choose from the sorted moves so the position does not depend on the order of move generation
+            val sorted = possibleMoves.toIntArray().apply { sort() }
+            GameRuleLogic.performMove(state, PackedMove.decode(sorted[random.nextInt(sorted.size)]))
+            GameRuleLogic.removeInvalidColors(state)
+        }
+        return state
+    }
+    
+    companion object {
+        val startPiece = PieceShape.PENTO_L
+    }
+}
@@ -9,5 +9,14 @@ public interface IGamePlugin extends IPlugin {
   /** @return eine neues Spiel dieses Typs. */
   IGameInstance createGame();
 
+  /**
+   * @return ein neues Spiel dieses Typs, dessen Zufall vollständig durch den Seed bestimmt ist,
+   * sodass es bei gleichen Zügen immer gleich verläuft.
+   * Plugins ohne Zufall müssen dies nicht überschreiben.
+   */
+  default IGameInstance createGame(long seed) {
+    return createGame();
+  }
+
   ScoreDefinition getScoreDefinition();
 }
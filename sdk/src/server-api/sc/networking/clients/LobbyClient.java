@@ -18,6 +18,9 @@ import sc.shared.SlotDescriptor;
 import java.io.IOException;
 import java.net.Socket;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is used to handle all communication with a server.
@@ -36,6 +39,23 @@ public final class LobbyClient extends XStreamClient implements IPollsHistory {
 
   public static final String DEFAULT_HOST = "127.0.0.1";
 
+  /**
+   * A round trip is discarded if the receiving thread spent more than this many nanoseconds
+   * handling other messages meanwhile, since the pong then waited in the queue.
+   */
+  private static final long MAX_BUSY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final RoundTripEstimator roundTrip = new RoundTripEstimator();
+  private ScheduledExecutorService pinger;
+  /** Total time the receiving thread spent in {@link #onObject}. */
+  private volatile long busyNanos;
+  private volatile long receiveTime = System.nanoTime();
+  /** Id of the ping awaiting its pong, or -1. */
+  private volatile long pendingPing = -1;
+  private volatile long pingSentAt;
+  private volatile long pingBusyNanos;
+  private long nextPingId;
+
   public LobbyClient() throws IOException {
     this(DEFAULT_HOST, SharedConfiguration.DEFAULT_PORT);
   }
@@ -56,6 +76,16 @@ public final class LobbyClient extends XStreamClient implements IPollsHistory {
       return;
     }
 
+    long start = System.nanoTime();
+    receiveTime = start;
+    try {
+      dispatch(o);
+    } finally {
+      busyNanos += System.nanoTime() - start;
+    }
+  }
+
+  private void dispatch(ProtocolMessage o) {
     invokeHandlers(o);
 
     if (o instanceof RoomPacket) {
@@ -86,6 +116,8 @@ public final class LobbyClient extends XStreamClient implements IPollsHistory {
     } else if (o instanceof TestModeResponse) {
       boolean testMode = (((TestModeResponse) o).getTestMode());
       logger.info("TestMode was set to {} ", testMode);
+    } else if (o instanceof PongResponse) {
+      onPong(((PongResponse) o).getId());
     } else if (o instanceof ProtocolErrorMessage) {
       ProtocolErrorMessage response = (ProtocolErrorMessage) o;
       onError(null, response);
@@ -94,6 +126,22 @@ public final class LobbyClient extends XStreamClient implements IPollsHistory {
     }
   }
 
+  private void onPong(long id) {
+    if (id != pendingPing) {
+      logger.warn("Received unexpected pong {}", id);
+      return;
+    }
+    long roundTripNanos = System.nanoTime() - pingSentAt;
+    boolean delayed = busyNanos - pingBusyNanos > MAX_BUSY_NANOS;
+    pendingPing = -1;
+    if (delayed) {
+      logger.trace("Discarding round trip of {}µs delayed by other messages", roundTripNanos / 1000);
+    } else {
+      roundTrip.add(roundTripNanos);
+      logger.trace("Measured round trip of {}µs: {}", roundTripNanos / 1000, roundTrip);
+    }
+  }
+
   private void onGamePaused(String roomId, Player nextPlayer) {
     for (IAdministrativeListener listener : this.administrativeListeners) {
       listener.onGamePaused(roomId, nextPlayer);
@@ -146,6 +194,63 @@ public final class LobbyClient extends XStreamClient implements IPollsHistory {
     }
   }
 
+  /**
+   * @return the {@link System#nanoTime()} at which the receiving thread started handling the current or last message,
+   * right after parsing it and before any listener was called
+   */
+  public long getReceiveTime() {
+    return receiveTime;
+  }
+
+  /** @return the round-trip time to the server, as measured by {@link #ping()} */
+  public RoundTripEstimator getRoundTrip() {
+    return roundTrip;
+  }
+
+  /** Sends a ping to measure the round-trip time, unless the previous one is still unanswered. */
+  public synchronized void ping() {
+    if (pendingPing != -1 || isClosed())
+      return;
+    pingBusyNanos = busyNanos;
+    pingSentAt = System.nanoTime();
+    pendingPing = nextPingId;
+    send(new PingRequest(nextPingId++));
+  }
+
+  /**
+   * Measures the round-trip time to the server continuously in the background until the client disconnects.
+   *
+   * @param interval milliseconds between two pings
+   */
+  public synchronized void startPinging(long interval) {
+    if (pinger != null)
+      return;
+    pinger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Ping of " + shortString());
+      thread.setDaemon(true);
+      return thread;
+    });
+    pinger.scheduleWithFixedDelay(() -> {
+      try {
+        ping();
+      } catch (Exception e) {
+        logger.warn("Failed to send ping", e);
+      }
+    }, 0, interval, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void stopPinging() {
+    if (pinger != null) {
+      pinger.shutdownNow();
+      pinger = null;
+    }
+  }
+
+  @Override
+  protected void onDisconnect(DisconnectCause cause) {
+    stopPinging();
+  }
+
   public void authenticate(String password) {
     send(new AuthenticateRequest(password));
   }
@@ -0,0 +1,49 @@
+package sc.networking.clients
+
+/**
+ * Smoothed estimate of the round-trip time to the server and of its variation,
+ * computed like the retransmission timer of TCP (RFC 6298).
+ * Samples are added by the receiving thread and read by any other thread.
+ */
+class RoundTripEstimator {
+    /** Number of samples taken so far. */
+    @Volatile
+    var samples = 0
+        private set
+
+    /** Smoothed round-trip time in nanoseconds. */
+    @Volatile
+    var smoothedNanos = 0L
+        private set
+
+    /** Smoothed mean deviation of the round-trip time in nanoseconds. */
+    @Volatile
+    var deviationNanos = 0L
+        private set
+
+    fun hasSamples() = samples > 0
+
+    /** Adds a measured round-trip time in nanoseconds. */
+    @Synchronized
+    fun add(sampleNanos: Long) {
+        if (samples == 0) {
+            smoothedNanos = sampleNanos
+            deviationNanos = sampleNanos / 2
+        } else {
+            deviationNanos += (Math.abs(smoothedNanos - sampleNanos) - deviationNanos) / 4
+            smoothedNanos += (sampleNanos - smoothedNanos) / 8
+        }
+        samples++
+    }
+
+    /**
+     * A round-trip time that is rarely exceeded, namely the smoothed value plus four deviations,
+     * or [default] if there are no samples yet.
+     */
+    @Synchronized
+    fun upperBoundNanos(default: Long): Long =
+            if (hasSamples()) smoothedNanos + 4 * deviationNanos else default
+
+    override fun toString() =
+            "RoundTripEstimator(smoothed=${smoothedNanos / 1000}µs, deviation=${deviationNanos / 1000}µs, samples=$samples)"
+}
@@ -12,7 +12,7 @@ object LobbyProtocol {
     fun registerMessages(xStream: XStream): XStream {
         registerAdditionalMessages(xStream, listOf(ProtocolErrorMessage::class.java, GamePausedEvent::class.java, JoinedRoomResponse::class.java, LeftGameEvent::class.java, MementoEvent::class.java, GamePreparedResponse::class.java, ObservationResponse::class.java, RoomPacket::class.java, WelcomeMessage::class.java))
     
-        registerAdditionalMessages(xStream, listOf(AuthenticateRequest::class.java, CancelRequest::class.java, FreeReservationRequest::class.java, JoinPreparedRoomRequest::class.java, JoinRoomRequest::class.java, ObservationRequest::class.java, PauseGameRequest::class.java, ControlTimeoutRequest::class.java, PrepareGameRequest::class.java, StepRequest::class.java, PlayerScoreRequest::class.java, TestModeRequest::class.java, PlayerScoreResponse::class.java, TestModeResponse::class.java, RoomWasJoinedEvent::class.java))
+        registerAdditionalMessages(xStream, listOf(AuthenticateRequest::class.java, CancelRequest::class.java, FreeReservationRequest::class.java, JoinPreparedRoomRequest::class.java, JoinRoomRequest::class.java, ObservationRequest::class.java, PauseGameRequest::class.java, ControlTimeoutRequest::class.java, PrepareGameRequest::class.java, StepRequest::class.java, PlayerScoreRequest::class.java, TestModeRequest::class.java, PlayerScoreResponse::class.java, TestModeResponse::class.java, RoomWasJoinedEvent::class.java, PingRequest::class.java, PongResponse::class.java))
     
         registerAdditionalMessages(xStream, listOf(GameResult::class.java, PlayerScore::class.java, ScoreAggregation::class.java, ITeam::class.java, ScoreCause::class.java, ScoreDefinition::class.java, ScoreFragment::class.java, WinCondition::class.java, SlotDescriptor::class.java, Score::class.java, ScoreValue::class.java))
 
@@ -0,0 +1,14 @@
+package sc.protocol.requests
+
+import com.thoughtworks.xstream.annotations.XStreamAlias
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute
+
+/**
+ * Send by client to measure the round-trip time to the server.
+ * The server answers immediately with a [sc.protocol.responses.PongResponse] carrying the same [id].
+ */
+@XStreamAlias("ping")
+data class PingRequest(
+        @XStreamAsAttribute
+        val id: Long
+): ILobbyRequest
@@ -5,15 +5,20 @@ import com.thoughtworks.xstream.annotations.XStreamAsAttribute
 import com.thoughtworks.xstream.annotations.XStreamImplicit
 import sc.shared.SlotDescriptor
 
-/** Request to prepare a game of [gameType] with two reserved slots according to [slotDescriptors]. */
+/**
+ * Request to prepare a game of [gameType] with two reserved slots according to [slotDescriptors].
+ * If a [seed] is given, the randomness of the game is determined by it, so that it can be replayed.
+ */
 @XStreamAlias("prepare")
-data class PrepareGameRequest(
+data class PrepareGameRequest @JvmOverloads constructor(
     @XStreamAsAttribute
     val gameType: String,
     @XStreamImplicit(itemFieldName = "slot")
     val slotDescriptors: Array<SlotDescriptor>,
     @XStreamAsAttribute
-    val pause: Boolean
+    val pause: Boolean,
+    @XStreamAsAttribute
+    val seed: Long? = null
 ): AdminLobbyRequest {
     
     /**
@@ -22,22 +27,25 @@ data class PrepareGameRequest(
      *
      * @param gameType type of the game (plugin id)
      * @param pause whether the game should start paused
+     * @param seed seed for the randomness of the game, random if null
      */
     @JvmOverloads
     constructor(
         gameType: String,
         descriptor1: SlotDescriptor = SlotDescriptor("Player1"),
         descriptor2: SlotDescriptor = SlotDescriptor("Player2"),
-        pause: Boolean = false
-    ): this(gameType, arrayOf(descriptor1, descriptor2), pause)
+        pause: Boolean = false,
+        seed: Long? = null
+    ): this(gameType, arrayOf(descriptor1, descriptor2), pause, seed)
     
     override fun equals(other: Any?): Boolean =
-        other is PrepareGameRequest && gameType == other.gameType && pause == other.pause && slotDescriptors.contentDeepEquals(other.slotDescriptors)
+        other is PrepareGameRequest && gameType == other.gameType && pause == other.pause && seed == other.seed && slotDescriptors.contentDeepEquals(other.slotDescriptors)
     
     override fun hashCode(): Int {
         var result = gameType.hashCode()
         result = 31 * result + slotDescriptors.contentHashCode()
         result = 31 * result + pause.hashCode()
+        result = 31 * result + seed.hashCode()
         return result
     }
     
@@ -0,0 +1,11 @@
+package sc.protocol.responses
+
+import com.thoughtworks.xstream.annotations.XStreamAlias
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute
+
+/** Response to a PingRequest, echoing its id. */
+@XStreamAlias("pong")
+data class PongResponse(
+        @XStreamAsAttribute
+        val id: Long
+): ProtocolMessage
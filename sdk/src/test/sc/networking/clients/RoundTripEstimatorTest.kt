@@ -0,0 +1,40 @@
+package sc.networking.clients
+
+import io.kotest.core.spec.style.WordSpec
+import io.kotest.matchers.longs.shouldBeGreaterThan
+import io.kotest.matchers.longs.shouldBeLessThan
+import io.kotest.matchers.shouldBe
+
+class RoundTripEstimatorTest: WordSpec({
+    "RoundTripEstimator" should {
+        "fall back to the default without samples" {
+            val estimator = RoundTripEstimator()
+            estimator.hasSamples() shouldBe false
+            estimator.upperBoundNanos(42) shouldBe 42
+        }
+        "start with the first sample and half of it as deviation" {
+            val estimator = RoundTripEstimator()
+            estimator.add(800)
+            estimator.hasSamples() shouldBe true
+            estimator.smoothedNanos shouldBe 800
+            estimator.deviationNanos shouldBe 400
+            estimator.upperBoundNanos(42) shouldBe 2400
+        }
+        "smooth further samples" {
+            val estimator = RoundTripEstimator()
+            estimator.add(800)
+            estimator.add(1600)
+            estimator.smoothedNanos shouldBe 900
+            estimator.deviationNanos shouldBe 500
+            estimator.samples shouldBe 2
+        }
+        "converge towards a steady round trip" {
+            val estimator = RoundTripEstimator()
+            estimator.add(10_000_000)
+            repeat(100) { estimator.add(1_000_000) }
+            estimator.smoothedNanos shouldBeLessThan 1_010_000
+            estimator.upperBoundNanos(0) shouldBeLessThan 1_100_000
+            estimator.upperBoundNanos(0) shouldBeGreaterThan 999_999
+        }
+    }
+})
@@ -0,0 +1,18 @@
+package sc.protocol.requests
+
+import io.kotest.core.spec.style.StringSpec
+import io.kotest.matchers.shouldBe
+import sc.helpers.shouldSerializeTo
+import sc.helpers.testXStream
+import sc.protocol.responses.PongResponse
+
+class PingRequestTest: StringSpec({
+    "XML Serialization" {
+        PingRequest(7) shouldSerializeTo """<ping id="7"/>"""
+        PongResponse(7) shouldSerializeTo """<pong id="7"/>"""
+    }
+    "XML Deserialization" {
+        testXStream.fromXML("""<ping id="12"/>""") shouldBe PingRequest(12)
+        testXStream.fromXML("""<pong id="12"/>""") shouldBe PongResponse(12)
+    }
+})
@@ -21,6 +21,15 @@ class PrepareGameRequestTest: WordSpec({
             (request as PrepareGameRequest).slotDescriptors[0].displayName shouldBe "Häschenschule"
             request.pause shouldBe false
             request.gameType shouldBe "swc_2018_hase_und_igel"
+            request.seed shouldBe null
+        }
+        "deserialize with seed" {
+            val request = testXStream.fromXML("""
+            <prepare gameType="swc_2021_blokus" pause="true" seed="42">
+              <slot displayName="p1" canTimeout="true"/>
+              <slot displayName="p2" canTimeout="true"/>
+            </prepare>""".trimIndent())
+            request shouldBe PrepareGameRequest("swc_2021_blokus", SlotDescriptor("p1"), SlotDescriptor("p2"), true, 42)
         }
         "serialize" {
             PrepareGameRequest("swc_2021_blokus", SlotDescriptor("p1"), SlotDescriptor("p2")) shouldSerializeTo """
@@ -29,6 +38,12 @@ class PrepareGameRequestTest: WordSpec({
                    <slot displayName="p2" canTimeout="true"/>
                  </prepare>
             """.trimIndent()
+            PrepareGameRequest("swc_2021_blokus", SlotDescriptor("p1"), SlotDescriptor("p2"), seed = 7) shouldSerializeTo """
+                 <prepare gameType="swc_2021_blokus" pause="false" seed="7">
+                   <slot displayName="p1" canTimeout="true"/>
+                   <slot displayName="p2" canTimeout="true"/>
+                 </prepare>
+            """.trimIndent()
         }
     }
 })
@@ -32,6 +32,8 @@ public class Configuration {
   public static final String PAUSED = "paused";
   public static final String TIMEOUT = "timeout";
   public static final String LISTEN_LOCAL_KEY = "local";
+  /** Seed for the randomness of all games, so that they can be replayed exactly. */
+  public static final String SEED = "seed";
 
   public static final String PASSWORD_KEY = "password";
   public static final String PORT_KEY = "port";
@@ -72,6 +74,11 @@ public class Configuration {
     return get(PLUGIN_PATH_KEY, String.class, PLUGIN_PATH_DEFAULT_KEY);
   }
 
+  /** @return the configured seed for new games, or null if every game should be random */
+  public static Long getSeed() {
+    return get(SEED, Long.class, null);
+  }
+
   public static String getAdministrativePassword() {
     return get(PASSWORD_KEY);
   }
@@ -101,6 +108,8 @@ public class Configuration {
       return type.cast(stringValue);
     } else if (type == Integer.class) {
       return type.cast(Integer.parseInt(stringValue));
+    } else if (type == Long.class) {
+      return type.cast(Long.parseLong(stringValue));
     } else if (type == Boolean.class) {
       return type.cast(toBoolean(stringValue));
     } else {
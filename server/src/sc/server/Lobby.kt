@@ -4,6 +4,7 @@ import org.slf4j.LoggerFactory
 import sc.api.plugins.exceptions.RescuableClientException
 import sc.protocol.requests.*
 import sc.protocol.responses.PlayerScoreResponse
+import sc.protocol.responses.PongResponse
 import sc.protocol.responses.ProtocolErrorMessage
 import sc.protocol.responses.RoomPacket
 import sc.protocol.responses.TestModeResponse
@@ -76,6 +77,7 @@ open class Lobby: GameRoomManager(), IClientListener, Closeable {
                     room.onEvent(source, packet.data)
                 }
                 is AuthenticateRequest -> source.authenticate(packet.password)
+                is PingRequest -> source.send(PongResponse(packet.id))
                 
                 is AdminLobbyRequest -> if (source.isAdministrator) when (packet) {
                     is PrepareGameRequest -> {
@@ -71,6 +71,19 @@ public class GameRoomManager {
    * @throws UnknownGameTypeException if no matching GamePlugin was found
    */
   public GameRoom createGame(String gameType, boolean prepared) throws RescuableClientException {
+    return createGame(gameType, prepared, null);
+  }
+
+  /**
+   * Create a new GameRoom from the matching plugin, like {@link #createGame(String, boolean)}.
+   *
+   * @param seed seed for the randomness of the game, if null the {@link Configuration#getSeed() configured seed} is used
+   *
+   * @return newly created GameRoom
+   *
+   * @throws UnknownGameTypeException if no matching GamePlugin was found
+   */
+  public GameRoom createGame(String gameType, boolean prepared, Long seed) throws RescuableClientException {
     GamePluginInstance plugin = this.gamePluginManager.getPlugin(gameType);
 
     if (plugin == null) {
@@ -80,8 +93,13 @@ public class GameRoomManager {
 
     logger.info("Creating new game of type " + gameType);
 
+    if (seed == null)
+      seed = Configuration.getSeed();
+    if (seed != null)
+      logger.info("Using seed {}", seed);
+
     String roomId = generateRoomId();
-    GameRoom room = new GameRoom(roomId, this, plugin.getPlugin().getScoreDefinition(), plugin.createGame(), prepared);
+    GameRoom room = new GameRoom(roomId, this, plugin.getPlugin().getScoreDefinition(), plugin.createGame(seed), prepared);
     // pause room if specified in server.properties on joinRoomRequest
     if (!prepared) {
       boolean paused = Boolean.parseBoolean(Configuration.get(Configuration.PAUSED));
@@ -170,7 +188,16 @@ public class GameRoomManager {
    */
   public synchronized GamePreparedResponse prepareGame(String gameType, boolean paused, SlotDescriptor[] descriptors, Object loadGameInfo)
           throws RescuableClientException {
-    GameRoom room = createGame(gameType, true);
+    return prepareGame(gameType, paused, descriptors, loadGameInfo, null);
+  }
+
+  /**
+   * Like {@link #prepareGame(String, boolean, SlotDescriptor[], Object)},
+   * but with a seed for the randomness of the game, see {@link #createGame(String, boolean, Long)}.
+   */
+  public synchronized GamePreparedResponse prepareGame(String gameType, boolean paused, SlotDescriptor[] descriptors, Object loadGameInfo, Long seed)
+          throws RescuableClientException {
+    GameRoom room = createGame(gameType, true, seed);
     room.pause(paused);
     room.openSlots(descriptors);
 
@@ -193,7 +220,8 @@ public class GameRoomManager {
             prepared.getGameType(),
             prepared.getPause(),
             prepared.getSlotDescriptors(),
-            null
+            null,
+            prepared.getSeed()
     );
   }
 
@@ -18,4 +18,9 @@ public class GamePluginInstance extends PluginInstance<IGamePlugin> {
     return this.getPlugin().createGame();
   }
 
+  /** Creates a new game with the given seed, or with an arbitrary one if it is null. */
+  public IGameInstance createGame(Long seed) {
+    return seed == null ? createGame() : this.getPlugin().createGame(seed);
+  }
+
 }
@@ -237,6 +237,18 @@ class RequestTest: RealServerTest() {
         TestHelper.assertEqualsWithTimeout("false", { Configuration.get(Configuration.TEST_MODE) }, 1000)
     }
     
+    @Test
+    fun pingRequest() {
+        player1.roundTrip.hasSamples() shouldBe false
+        player1.ping()
+        await("Client measures the round trip") { player1.roundTrip.hasSamples() }
+        player1.ping()
+        await("Client measures another round trip") { player1.roundTrip.samples == 2 }
+        
+        player2.startPinging(10)
+        await("Client measures round trips continuously") { player2.roundTrip.samples > 3 }
+    }
+    
     // TODO implement @Test
     fun getScoreForPlayerRequest() {
     }